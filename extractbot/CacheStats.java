@@ -0,0 +1,40 @@
+package extractbot;
+
+/**
+ * 结果缓存的计数快照：命中、未命中、淘汰次数和当前条目数。
+ */
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    CacheStats(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "命中 " + hits + "，未命中 " + misses + "，淘汰 " + evictions + "，当前 " + size + " 项";
+    }
+}
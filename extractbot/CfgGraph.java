@@ -0,0 +1,261 @@
+package extractbot;
+
+import java.util.Arrays;
+
+/**
+ * 紧凑的 CFG 表示：把原始节点编号映射为 0..n-1 的稠密下标（按编号升序），
+ * 后继和前驱都以压缩稀疏行（CSR）形式存放在 int[] 中，同一节点的后继保持边在输入中的顺序。
+ * <p>
+ * 路径算法全部在稠密下标上运行，输出时再用 {@link #toIds(int[], int)} 换回原始编号。
+ */
+final class CfgGraph {
+
+    /** 节点数不超过它时，后继/前驱集合额外用一个 long 位图表示 */
+    static final int SMALL_GRAPH_NODES = 64;
+
+    /** 节点数 */
+    final int n;
+    /** 稠密下标 -> 原始编号，升序 */
+    final int[] ids;
+    /** 节点 v 的后继为 succ[succStart[v] .. succStart[v + 1]) */
+    final int[] succStart;
+    final int[] succ;
+    /** 节点 v 的前驱为 pred[predStart[v] .. predStart[v + 1]) */
+    final int[] predStart;
+    final int[] pred;
+    /** 小图（n <= SMALL_GRAPH_NODES）的后继、前驱位图，第 w 位表示节点 w；大图为 null */
+    final long[] succMask;
+    final long[] predMask;
+
+    /** 原始编号 -> 稠密下标，不存在为 -1；编号为 minId + i 的节点存放在 denseOf[i] */
+    private final int[] denseOf;
+    private final int minId;
+
+    private CfgGraph(int[] ids, int minId, int[] denseOf, int[] succStart, int[] succ, int[] predStart, int[] pred) {
+        this.n = ids.length;
+        this.ids = ids;
+        this.minId = minId;
+        this.denseOf = denseOf;
+        this.succStart = succStart;
+        this.succ = succ;
+        this.predStart = predStart;
+        this.pred = pred;
+        if (n <= SMALL_GRAPH_NODES) {
+            succMask = new long[n];
+            predMask = new long[n];
+            for (int v = 0; v < n; v++) {
+                for (int i = succStart[v]; i < succStart[v + 1]; i++) succMask[v] |= 1L << succ[i];
+                for (int i = predStart[v]; i < predStart[v + 1]; i++) predMask[v] |= 1L << pred[i];
+            }
+        } else {
+            succMask = null;
+            predMask = null;
+        }
+    }
+
+    boolean isSmall() {
+        return succMask != null;
+    }
+
+    /**
+     * 由边数组（每行 {from, to}）构造图；节点集合为所有边端点，重复的边只保留第一次出现。
+     */
+    static CfgGraph of(int[][] edges) {
+        EdgeSet unique = new EdgeSet(edges.length);
+        for (int[] e : edges) unique.add(e[0], e[1]);
+        if (unique.size() != edges.length) {
+            edges = unique.toArray();
+        }
+        int m = edges.length;
+        if (m == 0) {
+            return new CfgGraph(new int[0], 0, new int[0], new int[]{0}, new int[0], new int[]{0}, new int[0]);
+        }
+
+        int minId = Integer.MAX_VALUE, maxId = Integer.MIN_VALUE;
+        for (int[] e : edges) {
+            minId = Math.min(minId, Math.min(e[0], e[1]));
+            maxId = Math.max(maxId, Math.max(e[0], e[1]));
+        }
+
+        // 节点编号来自访问器的顺序计数，范围与节点数同阶，直接用数组做编号映射
+        int[] denseOf = new int[maxId - minId + 1];
+        for (int[] e : edges) {
+            denseOf[e[0] - minId] = 1;
+            denseOf[e[1] - minId] = 1;
+        }
+        int n = 0;
+        for (int i = 0; i < denseOf.length; i++) {
+            if (denseOf[i] != 0) n++;
+        }
+        int[] ids = new int[n];
+        for (int i = 0, k = 0; i < denseOf.length; i++) {
+            if (denseOf[i] != 0) {
+                ids[k] = minId + i;
+                denseOf[i] = k++;
+            } else {
+                denseOf[i] = -1;
+            }
+        }
+
+        int[] succStart = new int[n + 1];
+        int[] predStart = new int[n + 1];
+        for (int[] e : edges) {
+            succStart[denseOf[e[0] - minId] + 1]++;
+            predStart[denseOf[e[1] - minId] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            succStart[v + 1] += succStart[v];
+            predStart[v + 1] += predStart[v];
+        }
+
+        int[] succ = new int[m];
+        int[] pred = new int[m];
+        int[] succFill = Arrays.copyOf(succStart, n);
+        int[] predFill = Arrays.copyOf(predStart, n);
+        for (int[] e : edges) {
+            int from = denseOf[e[0] - minId];
+            int to = denseOf[e[1] - minId];
+            succ[succFill[from]++] = to;
+            pred[predFill[to]++] = from;
+        }
+        return new CfgGraph(ids, minId, denseOf, succStart, succ, predStart, pred);
+    }
+
+    /**
+     * 原始编号对应的稠密下标，不在图中返回 -1。
+     */
+    int indexOf(int id) {
+        int i = id - minId;
+        if (i < 0 || i >= denseOf.length) return -1;
+        return denseOf[i];
+    }
+
+    int outDegree(int v) {
+        return succStart[v + 1] - succStart[v];
+    }
+
+    int inDegree(int v) {
+        return predStart[v + 1] - predStart[v];
+    }
+
+    /**
+     * 入口：编号最小的无前驱节点，没有则为 -1。
+     */
+    int entry() {
+        for (int v = 0; v < n; v++) {
+            if (inDegree(v) == 0) return v;
+        }
+        return -1;
+    }
+
+    /**
+     * 出口：编号最小的无后继节点，没有则为 -1。
+     */
+    int exit() {
+        for (int v = 0; v < n; v++) {
+            if (outDegree(v) == 0) return v;
+        }
+        return -1;
+    }
+
+    /** {@link #bfsTree} 中不可达节点的父节点标记 */
+    static final int UNREACHED = -2;
+
+    /**
+     * 从 root 做一次 BFS。返回每个节点在 BFS 树中的父节点（root 为 -1，不可达为 {@link #UNREACHED}），
+     * dist 不为 null 时填入到 root 的边数。reverse 为 true 时沿前驱方向搜索，
+     * 此时“父节点”即沿最短路走向 root 的下一个节点。
+     */
+    int[] bfsTree(int root, boolean reverse, int[] dist) {
+        int[] adjStart = reverse ? predStart : succStart;
+        int[] adj = reverse ? pred : succ;
+        int[] parent = new int[n];
+        Arrays.fill(parent, UNREACHED);
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+
+        queue[tail++] = root;
+        parent[root] = -1;
+        if (dist != null) dist[root] = 0;
+
+        while (head < tail) {
+            int u = queue[head++];
+            for (int i = adjStart[u], end = adjStart[u + 1]; i < end; i++) {
+                int v = adj[i];
+                if (parent[v] != UNREACHED) continue;
+                parent[v] = u;
+                if (dist != null) dist[v] = dist[u] + 1;
+                queue[tail++] = v;
+            }
+        }
+        return parent;
+    }
+
+    /**
+     * 强连通分量：返回 comp，comp[v] 为节点 v 所在分量的编号（迭代式 Tarjan，分量按逆拓扑序编号）。
+     * 环只可能落在一个分量内部；从 v 出发的路径一旦离开 v 的分量就不可能再回到 v。
+     */
+    int[] components() {
+        int[] comp = new int[n];
+        int[] index = new int[n];
+        int[] low = new int[n];
+        Arrays.fill(index, -1);
+        int[] stack = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] callStack = new int[n];
+        int[] edgePos = new int[n];
+        int sp = 0, counter = 0, compCount = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) continue;
+            int depth = 0;
+            callStack[depth] = root;
+            index[root] = low[root] = counter++;
+            edgePos[root] = succStart[root];
+            stack[sp++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int v = callStack[depth];
+                if (edgePos[v] < succStart[v + 1]) {
+                    int w = succ[edgePos[v]++];
+                    if (index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        edgePos[w] = succStart[w];
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callStack[++depth] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        comp[w] = compCount;
+                    } while (w != v);
+                    compCount++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callStack[depth];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+        return comp;
+    }
+
+    /**
+     * 把稠密下标路径 path[0 .. len) 转成原始编号数组。
+     */
+    int[] toIds(int[] path, int len) {
+        int[] out = new int[len];
+        for (int i = 0; i < len; i++) {
+            out[i] = ids[path[i]];
+        }
+        return out;
+    }
+}
@@ -0,0 +1,70 @@
+package extractbot;
+
+import cn.edu.whu.cstar.testingcourse.cfgparser.CfgNodeVisitor;
+import cn.edu.whu.cstar.testingcourse.cfgparser.LogItem;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次方法遍历的节点编号上下文。
+ * <p>
+ * CfgNodeVisitor 把节点编号计数器 indexNode / counterReturnStmt 放在静态字段里，这个类在 cfgparser.jar 中无法修改，
+ * 两个线程同时遍历会互相打乱编号。这里把“计数器归零 -> 遍历方法体 -> 取出 LogItem”作为一个整体在同一把锁内完成，
+ * 返回的是列表副本：每次提取都从 0 开始编号，结果确定；锁只覆盖对单个方法体的遍历，
+ * 解析、建边和路径计算都在锁外进行，可以在多个线程上并行。
+ */
+final class CfgNodeNumbering {
+
+    private static final Field INDEX_FIELD = declaredField("indexNode");
+    private static final Field COUNTER_FIELD = declaredField("counterReturnStmt");
+    private static final Field LIST_FIELD = declaredField("listLogItem");
+
+    private CfgNodeNumbering() {
+    }
+
+    private static Field declaredField(String name) {
+        try {
+            Field f = CfgNodeVisitor.class.getDeclaredField(name);
+            f.setAccessible(true);
+            return f;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 遍历方法体并返回编号从 0 开始的 LogItem 列表；无法读取访问器内部列表时返回空列表。
+     */
+    static List<LogItem> visit(MethodDeclaration method, CompilationUnit unit) {
+        synchronized (CfgNodeVisitor.class) {
+            // 重置访问器中的静态计数器，保证每次调用编号一致
+            try {
+                if (INDEX_FIELD != null) INDEX_FIELD.setInt(null, 0);
+                if (COUNTER_FIELD != null) COUNTER_FIELD.setInt(null, 0);
+            } catch (Exception ignored) {}
+
+            CfgNodeVisitor visitor = new CfgNodeVisitor(method, unit);
+            method.getBody().accept(visitor);
+
+            if (visitor.getCounterReturnStmt() == 0) {
+                visitor.addPseudoReturnStmt();
+            }
+            visitor.updateParent();
+
+            if (LIST_FIELD == null) {
+                return new ArrayList<>();
+            }
+            try {
+                @SuppressWarnings("unchecked")
+                List<LogItem> items = (List<LogItem>) LIST_FIELD.get(visitor);
+                return items == null ? new ArrayList<>() : new ArrayList<>(items);
+            } catch (IllegalAccessException e) {
+                return new ArrayList<>();
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package extractbot;
+
+import extractbot.MyExtractor.NodeInfo;
+import extractbot.MyExtractor.NodeKind;
+import extractbot.MyExtractor.NodeRole;
+
+import java.util.*;
+
+/**
+ * 构造 CFG 边时用到的结构索引，在一次遍历 {@link NodeInfo} 时全部建好。
+ * <p>
+ * 节点编号来自访问器的顺序计数，与节点数同阶，所有按节点的数组都以 id - minId 为下标（下文称槽位）。
+ * “下一个兄弟”、最近的可 break 祖先、最近的带 continue 目标的祖先、findNext 的结果都用带路径压缩的备忘数组一次算出，
+ * 正常出口也按节点缓存，边构造因此与节点数成线性，不再对每个节点线性扫描兄弟列表或沿父链反复上溯。
+ */
+final class CfgStructure {
+
+    private static final int UNKNOWN = -2;
+    private static final int IN_PROGRESS = -3;
+
+    final Map<Integer, NodeInfo> nodeMap = new HashMap<>();
+    /** parent id -> 按 startX 排好序的孩子 */
+    final Map<Integer, List<NodeInfo>> childrenMap = new HashMap<>();
+    /** 没有父节点的节点（不含伪返回节点），按 startX 排序 */
+    final List<NodeInfo> roots = new ArrayList<>();
+    final NodeInfo pseudoReturn;
+
+    private final int minId;
+    /** 槽位 -> 节点，同一 id 出现多次时与 nodeMap 一样取最后一个 */
+    private final NodeInfo[] bySlot;
+    /** 父节点的槽位，没有父节点或父节点不存在为 -1 */
+    private final int[] parentSlot;
+    /** findNext：自身或最近的祖先的下一个兄弟，没有为 -1 */
+    private final int[] nextSlot;
+    /** 自身或最近的祖先中 switch/for/while/do-while 的槽位 */
+    private final int[] breakableSlot;
+    /** 自身或最近的祖先中循环的 continue 目标（for-update / 条件节点）的槽位 */
+    private final int[] continueSlot;
+
+    /** 槽位 -> normalExits 的结果，未算出为 null */
+    private final List<List<NodeInfo>> exitsMemo;
+    private final byte[] exitsState;
+
+    CfgStructure(List<NodeInfo> nodeInfos) {
+        for (NodeInfo n : nodeInfos) nodeMap.put(n.id, n);
+
+        for (NodeInfo node : nodeInfos) {
+            if (node.parent != -1) {
+                childrenMap.computeIfAbsent(node.parent, k -> new ArrayList<>()).add(node);
+            }
+        }
+        for (List<NodeInfo> list : childrenMap.values()) {
+            list.sort(Comparator.comparingInt(n -> n.startX));
+        }
+
+        for (NodeInfo node : nodeInfos) {
+            if (node.parent == -1 && node.role != NodeRole.PSEUDO_RETURN) {
+                roots.add(node);
+            }
+        }
+        roots.sort(Comparator.comparingInt(n -> n.startX));
+
+        NodeInfo pr = null;
+        for (NodeInfo n : nodeInfos) {
+            if (n.role == NodeRole.PSEUDO_RETURN) {
+                pr = n;
+                break;
+            }
+        }
+        pseudoReturn = pr;
+
+        int lo = Integer.MAX_VALUE, hi = Integer.MIN_VALUE;
+        for (NodeInfo n : nodeInfos) {
+            lo = Math.min(lo, n.id);
+            hi = Math.max(hi, n.id);
+        }
+        minId = nodeInfos.isEmpty() ? 0 : lo;
+        int size = nodeInfos.isEmpty() ? 0 : hi - lo + 1;
+        bySlot = new NodeInfo[size];
+        for (NodeInfo n : nodeInfos) bySlot[n.id - minId] = n;
+
+        parentSlot = new int[size];
+        int[] siblingCand = new int[size];
+        int[] breakCand = new int[size];
+        int[] continueCand = new int[size];
+        Arrays.fill(parentSlot, -1);
+        Arrays.fill(siblingCand, -1);
+        Arrays.fill(breakCand, -1);
+        Arrays.fill(continueCand, -1);
+
+        for (int s = 0; s < size; s++) {
+            NodeInfo n = bySlot[s];
+            if (n == null) continue;
+            NodeInfo p = nodeMap.get(n.parent);
+            if (p != null) parentSlot[s] = p.id - minId;
+
+            NodeKind nk = n.nodeKind;
+            if (nk == NodeKind.SWITCH || nk == NodeKind.FOR || nk == NodeKind.WHILE || nk == NodeKind.DO_WHILE) {
+                breakCand[s] = s;
+            }
+            NodeInfo target = loopContinueTarget(n, nk);
+            if (target != null) continueCand[s] = target.id - minId;
+        }
+
+        // 下一个兄弟：父节点存在时在父节点的孩子列表中找，父节点为 -1 时在 roots 中找，同一 id 只取第一次出现
+        for (Map.Entry<Integer, List<NodeInfo>> e : childrenMap.entrySet()) {
+            if (nodeMap.containsKey(e.getKey())) fillSiblings(e.getValue(), siblingCand);
+        }
+        fillSiblings(roots, siblingCand);
+
+        nextSlot = nearestUp(siblingCand);
+        breakableSlot = nearestUp(breakCand);
+        continueSlot = nearestUp(continueCand);
+
+        exitsMemo = new ArrayList<>(Collections.nCopies(size, null));
+        exitsState = new byte[size];
+    }
+
+    private void fillSiblings(List<NodeInfo> siblings, int[] siblingCand) {
+        for (int i = 0; i + 1 < siblings.size(); i++) {
+            int s = siblings.get(i).id - minId;
+            if (siblingCand[s] == -1 && bySlot[s] == siblings.get(i)) {
+                siblingCand[s] = siblings.get(i + 1).id - minId;
+            }
+        }
+    }
+
+    /**
+     * 循环节点自身的 continue 目标：for 取第一个 for-update 或 for-condition 孩子，while/do-while 取第一个条件孩子。
+     */
+    private NodeInfo loopContinueTarget(NodeInfo node, NodeKind nk) {
+        if (nk == NodeKind.FOR) {
+            for (NodeInfo child : childrenMap.getOrDefault(node.id, Collections.emptyList())) {
+                if (child.role == NodeRole.UPDATE || child.role == NodeRole.CONDITION) return child;
+            }
+        } else if (nk == NodeKind.WHILE || nk == NodeKind.DO_WHILE) {
+            for (NodeInfo child : childrenMap.getOrDefault(node.id, Collections.emptyList())) {
+                if (child.role == NodeRole.CONDITION) return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 对每个槽位 s，沿 s、父节点、祖父节点……找到第一个 cand 不为 -1 的节点，结果为该节点的 cand 值（找不到为 -1）。
+     * 走过的节点一次性填入结果，整体线性；父指针成环时环上的节点结果为 -1。
+     */
+    private int[] nearestUp(int[] cand) {
+        int size = cand.length;
+        int[] memo = new int[size];
+        Arrays.fill(memo, UNKNOWN);
+        int[] stack = new int[size];
+        for (int s = 0; s < size; s++) {
+            if (bySlot[s] == null || memo[s] != UNKNOWN) continue;
+            int sp = 0;
+            int x = s;
+            int value;
+            while (true) {
+                if (memo[x] == IN_PROGRESS) {
+                    value = -1;
+                    break;
+                }
+                if (memo[x] != UNKNOWN) {
+                    value = memo[x];
+                    break;
+                }
+                if (cand[x] != -1) {
+                    value = cand[x];
+                    memo[x] = value;
+                    break;
+                }
+                memo[x] = IN_PROGRESS;
+                stack[sp++] = x;
+                x = parentSlot[x];
+                if (x < 0) {
+                    value = -1;
+                    break;
+                }
+            }
+            while (sp > 0) memo[stack[--sp]] = value;
+        }
+        return memo;
+    }
+
+    private NodeInfo nodeAt(int slot) {
+        return slot < 0 ? null : bySlot[slot];
+    }
+
+    private int slotOf(NodeInfo node) {
+        int s = node.id - minId;
+        return s >= 0 && s < bySlot.length && bySlot[s] != null ? s : -1;
+    }
+
+    List<NodeInfo> children(NodeInfo node) {
+        return childrenMap.getOrDefault(node.id, Collections.emptyList());
+    }
+
+    /**
+     * 结构上紧跟在 node 之后执行的节点：node 的下一个兄弟，没有时取父节点的，依次向上；都没有返回 null。
+     */
+    NodeInfo findNext(NodeInfo node) {
+        int s = slotOf(node);
+        return s < 0 ? null : nodeAt(nextSlot[s]);
+    }
+
+    /**
+     * break 的目标：最近的 switch/循环祖先之后的节点；不在任何 switch/循环中时为伪返回节点。
+     */
+    NodeInfo findBreakTarget(NodeInfo node) {
+        int s = slotOf(node);
+        int p = s < 0 ? -1 : parentSlot[s];
+        if (p < 0 || breakableSlot[p] < 0) {
+            // 父节点不在图中时与原先一样直接落到伪返回节点
+            return pseudoReturn;
+        }
+        return nodeAt(nextSlot[breakableSlot[p]]);
+    }
+
+    /**
+     * continue 的目标：最近的循环祖先的 for-update / 条件节点，找不到为 null。
+     */
+    NodeInfo findContinueTarget(NodeInfo node) {
+        int s = slotOf(node);
+        int p = s < 0 ? -1 : parentSlot[s];
+        return p < 0 ? null : nodeAt(continueSlot[p]);
+    }
+
+    /**
+     * 节点正常执行结束后可能的最后一个节点，按节点缓存。返回的列表由多个调用方共享，不能修改。
+     * <p>
+     * 用显式栈做后序计算：if 的出口是 then、else 分支出口的并（都为空时取条件节点），
+     * 普通节点的出口是最后一个孩子的出口，循环取条件节点，switch 取最后一个孩子，break/continue/return 没有正常出口。
+     */
+    List<NodeInfo> normalExits(NodeInfo node) {
+        if (node == null) return Collections.emptyList();
+        int root = slotOf(node);
+        if (root < 0) return Collections.emptyList();
+
+        int[] stack = new int[16];
+        int sp = 0;
+        stack[sp++] = root;
+        while (sp > 0) {
+            int s = stack[sp - 1];
+            if (exitsState[s] == 2) {
+                sp--;
+                continue;
+            }
+            NodeInfo cur = bySlot[s];
+            NodeKind nk = cur.nodeKind;
+            List<NodeInfo> children = children(cur);
+            NodeInfo thenB = null, elseB = null, cond = null, last = null;
+            if (nk == NodeKind.IF) {
+                for (NodeInfo c : children) {
+                    switch (c.role) {
+                        case CONDITION -> cond = c;
+                        case THEN -> thenB = c;
+                        case ELSE -> elseB = c;
+                        default -> {
+                        }
+                    }
+                }
+            } else if (nk == NodeKind.OTHER && !children.isEmpty()) {
+                last = children.get(children.size() - 1);
+            }
+
+            if (exitsState[s] == 0) {
+                // 先展开依赖的分支；依赖正在计算中说明父指针成环，按没有出口处理
+                exitsState[s] = 1;
+                if (sp + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                for (NodeInfo dep : new NodeInfo[]{elseB, thenB, last}) {
+                    int d = dep == null ? -1 : slotOf(dep);
+                    if (d >= 0 && exitsState[d] == 0) stack[sp++] = d;
+                }
+                continue;
+            }
+
+            sp--;
+            List<NodeInfo> exits;
+            switch (nk) {
+                case BREAK, CONTINUE, RETURN -> exits = Collections.emptyList();
+                case IF -> {
+                    exits = new ArrayList<>();
+                    exits.addAll(doneExits(thenB));
+                    exits.addAll(doneExits(elseB));
+                    if (exits.isEmpty() && cond != null) exits.add(cond);
+                }
+                case FOR, WHILE, DO_WHILE -> {
+                    exits = new ArrayList<>();
+                    for (NodeInfo c : children) {
+                        if (c.role == NodeRole.CONDITION) exits.add(c);
+                    }
+                    if (exits.isEmpty()) exits.add(cur);
+                }
+                case SWITCH -> exits = Collections.singletonList(children.isEmpty() ? cur : children.get(children.size() - 1));
+                default -> exits = last != null ? doneExits(last) : Collections.singletonList(cur);
+            }
+            exitsMemo.set(s, exits);
+            exitsState[s] = 2;
+        }
+        return exitsMemo.get(root);
+    }
+
+    private List<NodeInfo> doneExits(NodeInfo node) {
+        int s = node == null ? -1 : slotOf(node);
+        return s >= 0 && exitsState[s] == 2 ? exitsMemo.get(s) : Collections.emptyList();
+    }
+}
@@ -0,0 +1,235 @@
+package extractbot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+/**
+ * 持久化的提取结果缓存：每个方法一个文件，保存 CFG、主路径和测试路径。
+ * <p>
+ * 键是“提取器版本 + 影响结果的设置 + 方法源码”的 SHA-256，源码或算法一变就落到新的键上，旧文件不会再被读到。
+ * 文件格式：魔数 "EBC"、格式版本、键、三个矩阵（行数、每行长度和元素都写成 varint），最后是前面所有字节的 CRC32。
+ * 读取时魔数、版本、键、校验和、长度任何一项不符都视为损坏或过期，删除该文件并按未命中处理。
+ * 缓存只是加速手段，读写失败都不会影响提取本身。
+ */
+final class DiskCache {
+
+    private static final byte[] MAGIC = {'E', 'B', 'C'};
+    private static final byte FORMAT_VERSION = 1;
+
+    private final Path dir;
+
+    DiskCache(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+    }
+
+    Path getDirectory() {
+        return dir;
+    }
+
+    /**
+     * 由版本、设置和方法源码计算缓存键（64 位十六进制）。
+     */
+    static String key(String version, String settings, String methodSource) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("缺少 SHA-256 实现", e);
+        }
+        md.update(version.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+        md.update(settings.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+        md.update(methodSource.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : md.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private Path fileOf(String key) {
+        // 按前两位分子目录，避免单个目录下文件过多
+        return dir.resolve(key.substring(0, 2)).resolve(key + ".bin");
+    }
+
+    /**
+     * 读取缓存；返回 {cfg, prime, testPaths}，未命中、损坏或过期时返回 null。
+     */
+    int[][][] load(String key) {
+        Path file = fileOf(key);
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+        int[][][] entry = decode(data, key);
+        if (entry == null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 写入缓存：先写同目录下的临时文件再改名，并发的读者不会看到写了一半的文件。
+     */
+    void store(String key, int[][] cfg, int[][] prime, int[][] testPaths) {
+        Path file = fileOf(key);
+        Path tmp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            tmp = Files.createTempFile(file.getParent(), key.substring(0, 8), ".tmp");
+            Files.write(tmp, encode(key, cfg, prime, testPaths));
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+        } catch (IOException ignored) {
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    static byte[] encode(String key, int[][] cfg, int[][] prime, int[][] testPaths) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(FORMAT_VERSION);
+        byte[] k = key.getBytes(StandardCharsets.US_ASCII);
+        writeVarint(out, k.length);
+        out.write(k, 0, k.length);
+        writeMatrix(out, cfg);
+        writeMatrix(out, prime);
+        writeMatrix(out, testPaths);
+
+        CRC32 crc = new CRC32();
+        crc.update(out.toByteArray());
+        long c = crc.getValue();
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            out.write((int) (c >>> shift) & 0xFF);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码并校验；任何不一致都返回 null。
+     */
+    static int[][][] decode(byte[] data, String key) {
+        if (data.length < MAGIC.length + 1 + 4) return null;
+        int body = data.length - 4;
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, body);
+        long stored = 0;
+        for (int i = body; i < data.length; i++) {
+            stored = (stored << 8) | (data[i] & 0xFF);
+        }
+        if (stored != crc.getValue()) return null;
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i]) return null;
+        }
+        if (data[MAGIC.length] != FORMAT_VERSION) return null;
+
+        Reader in = new Reader(data, MAGIC.length + 1, body);
+        try {
+            int keyLen = in.varint();
+            if (keyLen < 0 || keyLen > body - in.pos) return null;
+            String k = new String(data, in.pos, keyLen, StandardCharsets.US_ASCII);
+            in.pos += keyLen;
+            if (!k.equals(key)) return null;
+
+            int[][][] entry = {in.matrix(), in.matrix(), in.matrix()};
+            return in.pos == body ? entry : null;
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static void writeMatrix(ByteArrayOutputStream out, int[][] m) {
+        writeVarint(out, m.length);
+        for (int[] row : m) {
+            writeVarint(out, row.length);
+            for (int v : row) {
+                writeVarint(out, (v << 1) ^ (v >> 31));    // zigzag，负数也只占少量字节
+            }
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    /**
+     * 带边界检查的顺序读取；越界或长度不合理时抛出 IllegalStateException。
+     */
+    private static final class Reader {
+        final byte[] data;
+        final int end;
+        int pos;
+
+        Reader(byte[] data, int pos, int end) {
+            this.data = data;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        int varint() {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (pos >= end) throw new IllegalStateException("数据截断");
+                int b = data[pos++];
+                v |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IllegalStateException("varint 过长");
+        }
+
+        int length() {
+            int n = varint();
+            // 每个元素至少占一个字节，超过剩余字节数的长度一定是损坏的
+            if (n < 0 || n > end - pos) throw new IllegalStateException("长度非法");
+            return n;
+        }
+
+        int[][] matrix() {
+            int rows = length();
+            int[][] m = new int[rows][];
+            for (int r = 0; r < rows; r++) {
+                int len = length();
+                int[] row = new int[len];
+                for (int i = 0; i < len; i++) {
+                    int z = varint();
+                    row[i] = (z >>> 1) ^ -(z & 1);
+                }
+                m[r] = row;
+            }
+            return m;
+        }
+    }
+}
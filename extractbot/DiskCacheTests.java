@@ -0,0 +1,159 @@
+package extractbot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * 磁盘缓存的读写往返，以及损坏、截断、版本不符的文件被识别为未命中并删除。
+ */
+public class DiskCacheTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private DiskCache cache;
+	private String key;
+
+	private int[][] cfg = new int[][] {
+		{0, 3}, {3, 4}, {4, 5}, {5, 4}, {4, 1}, {1, 7}, {7, 8}, {8, 9}, {9, 8}, {8, 2}
+	};
+	private int[][] prime = new int[][] {
+		{4, 5, 4}, {5, 4, 5}, {0, 3, 4, 1, 7, 8, 2}, {-1, 200000, Integer.MAX_VALUE, Integer.MIN_VALUE}
+	};
+	private int[][] tests = new int[][] {
+		{0, 3, 4, 5, 4, 1, 7, 8, 2}, {}
+	};
+
+	@Before
+	public void setUp() throws IOException {
+		cache = new DiskCache(folder.getRoot().toPath().resolve("cache"));
+		key = DiskCache.key(MyExtractor.EXTRACTOR_VERSION, "INCREMENTAL/PER_PRIME_PATH", "int m() { return 0; }");
+	}
+
+	private Path onlyEntry() throws IOException {
+		try (Stream<Path> walk = Files.walk(cache.getDirectory())) {
+			List<Path> files = walk.filter(p -> p.toString().endsWith(".bin")).collect(Collectors.toList());
+			assertEquals(1, files.size());
+			return files.get(0);
+		}
+	}
+
+	/* 改动内容后重新写入 CRC，使文件只在被测的那一项上不一致 */
+	private static void rewriteCrc(byte[] data) {
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length - 4);
+		long c = crc.getValue();
+		for (int i = 0; i < 4; i++) {
+			data[data.length - 4 + i] = (byte) (c >>> (24 - 8 * i));
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		assertNull(cache.load(key));
+		cache.store(key, cfg, prime, tests);
+		int[][][] entry = cache.load(key);
+		assertNotNull(entry);
+		assertArrayEquals(cfg, entry[0]);
+		assertArrayEquals(prime, entry[1]);
+		assertArrayEquals(tests, entry[2]);
+
+		// 再次写入同一个键时整体替换
+		cache.store(key, cfg, new int[0][0], new int[0][0]);
+		assertEquals(0, cache.load(key)[1].length);
+	}
+
+	@Test
+	public void testKeyDependsOnVersionSettingsAndSource()
+	{
+		String source = "int m() { return 0; }";
+		assertEquals(key, DiskCache.key(MyExtractor.EXTRACTOR_VERSION, "INCREMENTAL/PER_PRIME_PATH", source));
+		assertNotEquals(key, DiskCache.key(MyExtractor.EXTRACTOR_VERSION + "-next", "INCREMENTAL/PER_PRIME_PATH", source));
+		assertNotEquals(key, DiskCache.key(MyExtractor.EXTRACTOR_VERSION, "INCREMENTAL/MERGED_TOURS", source));
+		assertNotEquals(key, DiskCache.key(MyExtractor.EXTRACTOR_VERSION, "INCREMENTAL/PER_PRIME_PATH", "int m() { return 1; }"));
+	}
+
+	@Test
+	public void testCorruptFileIsDeleted() throws IOException
+	{
+		cache.store(key, cfg, prime, tests);
+		Path file = onlyEntry();
+		byte[] data = Files.readAllBytes(file);
+		data[data.length / 2] ^= 0x10;
+		Files.write(file, data);
+
+		assertNull(cache.load(key));
+		assertFalse(Files.exists(file));
+
+		// 删除后可以重新写入并命中
+		cache.store(key, cfg, prime, tests);
+		assertArrayEquals(tests, cache.load(key)[2]);
+	}
+
+	@Test
+	public void testTruncatedFileIsDeleted() throws IOException
+	{
+		cache.store(key, cfg, prime, tests);
+		Path file = onlyEntry();
+		byte[] data = Files.readAllBytes(file);
+		for (int len : new int[] {0, 3, data.length / 2, data.length - 1}) {
+			Files.write(file, Arrays.copyOf(data, len));
+			assertNull(cache.load(key));
+			assertFalse(Files.exists(file));
+		}
+	}
+
+	@Test
+	public void testFormatVersionMismatchIsDeleted() throws IOException
+	{
+		cache.store(key, cfg, prime, tests);
+		Path file = onlyEntry();
+		byte[] data = Files.readAllBytes(file);
+		data[3]++;    // 魔数之后的格式版本
+		rewriteCrc(data);
+		Files.write(file, data);
+
+		assertNull(cache.load(key));
+		assertFalse(Files.exists(file));
+	}
+
+	@Test
+	public void testKeyMismatchIsRejected()
+	{
+		byte[] data = DiskCache.encode(key, cfg, prime, tests);
+		assertNotNull(DiskCache.decode(data, key));
+		String other = DiskCache.key(MyExtractor.EXTRACTOR_VERSION + "-next", "INCREMENTAL/PER_PRIME_PATH", "int m() { return 0; }");
+		assertNull(DiskCache.decode(data, other));
+	}
+
+	@Test
+	public void testBadLengthIsRejected()
+	{
+		// 校验和正确但长度字段超出剩余字节：不能按该长度分配数组
+		byte[] data = DiskCache.encode(key, new int[][] {{1}}, new int[0][0], new int[0][0]);
+		int rowsAt = 4 + 1 + key.length();
+		data[rowsAt] = 0x7F;
+		rewriteCrc(data);
+		assertNull(DiskCache.decode(data, key));
+	}
+}
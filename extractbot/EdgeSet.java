@@ -0,0 +1,92 @@
+package extractbot;
+
+import java.util.Arrays;
+
+/**
+ * 按插入顺序保存的去重边集合。
+ * <p>
+ * 每条边 (from, to) 打包成一个 long 存入开放寻址（线性探测）的散列表判重，边本身顺序写入一个可增长的 int[]，
+ * 加边时除了偶尔扩容不再分配对象。
+ */
+final class EdgeSet {
+
+    /** 空槽标记；打包后的边不可能等于它，因为 from = -1 且 to = -1 不是合法节点 */
+    private static final long EMPTY = -1L;
+
+    private long[] table;
+    private int mask;
+    private int[] flat;
+    private int size;
+
+    EdgeSet(int expectedEdges) {
+        int cap = Integer.highestOneBit(Math.max(4, expectedEdges) * 2 - 1) << 1;
+        table = new long[cap];
+        Arrays.fill(table, EMPTY);
+        mask = cap - 1;
+        flat = new int[Math.max(4, expectedEdges) * 2];
+    }
+
+    private static long pack(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    /**
+     * 加入一条边，已存在时忽略；返回是否新加入。
+     */
+    boolean add(int from, int to) {
+        long key = pack(from, to);
+        int i = slot(key, mask);
+        while (table[i] != EMPTY) {
+            if (table[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = key;
+
+        if (size * 2 + 2 > flat.length) {
+            flat = Arrays.copyOf(flat, flat.length * 2);
+        }
+        flat[size * 2] = from;
+        flat[size * 2 + 1] = to;
+        size++;
+
+        // 装载因子超过 1/2 时扩容
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    private void rehash() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        Arrays.fill(table, EMPTY);
+        mask = table.length - 1;
+        for (long key : old) {
+            if (key == EMPTY) continue;
+            int i = slot(key, mask);
+            while (table[i] != EMPTY) i = (i + 1) & mask;
+            table[i] = key;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 按插入顺序输出为 {from, to} 行数组。
+     */
+    int[][] toArray() {
+        int[][] result = new int[size][2];
+        for (int i = 0; i < size; i++) {
+            result[i][0] = flat[i * 2];
+            result[i][1] = flat[i * 2 + 1];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,293 @@
+package extractbot;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * 常驻的实时提取进程：用 {@link WatchService} 监视源码目录，文件新建或修改后在后台线程上增量重算该文件的 CFG、主路径和测试路径，
+ * 结果保留在内存里。查询直接返回已算好的结果，不必每次都付出 JVM 启动、加载 JDT 和解析的代价。
+ * <p>
+ * 重算通过 {@link IncrementalExtractor} 进行，只有结构变化的方法才会重新计算；同一文件在被处理前的多次事件合并为一次。
+ * 后台重算在同一个线程上按顺序执行；查询尚未算好的文件时在调用线程上直接计算，不排在后台队列之后。
+ * 同一文件的计算按文件加锁串行进行，每次都读取文件当时的内容，结果不会被较旧的一次计算覆盖。
+ * 文件删除时丢弃其结果；事件溢出时重新扫描全部目录。新建的子目录会自动加入监视。
+ */
+public class ExtractionDaemon implements AutoCloseable {
+
+    private final IncrementalExtractor extractor;
+    private final List<Path> roots;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    /** 规范化的绝对路径（与 {@link IncrementalExtractor} 的键相同）-> 最近一次成功提取的结果 */
+    private final Map<String, List<ExtractionResult>> results = new ConcurrentHashMap<>();
+    /** 最近一次提取失败的文件及原因，成功后清除 */
+    private final Map<String, Exception> failures = new ConcurrentHashMap<>();
+    /** 已排队、尚未开始处理的文件；查询线程先行计算时从这里取走，排队的任务随之跳过 */
+    private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+    /** 规范化的绝对路径 -> 该文件的计算锁 */
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final ExecutorService worker;
+    private final Thread watcher;
+    private volatile boolean closed;
+
+    public ExtractionDaemon(Path... roots) throws IOException {
+        this(new IncrementalExtractor(), Arrays.asList(roots));
+    }
+
+    public ExtractionDaemon(IncrementalExtractor extractor, List<Path> roots) throws IOException {
+        if (extractor == null || roots == null) {
+            throw new IllegalArgumentException("extractor 或 roots 不能为 null");
+        }
+        this.extractor = extractor;
+        this.roots = new ArrayList<>();
+        for (Path root : roots) this.roots.add(root.toAbsolutePath().normalize());
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "extractbot-daemon-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        this.watcher = new Thread(this::watchLoop, "extractbot-daemon-watcher");
+        this.watcher.setDaemon(true);
+    }
+
+    /**
+     * 注册全部目录的监视并把已有的 .java 文件排入后台计算，随即返回；用 {@link #awaitIdle} 等待首轮计算完成。
+     */
+    public void start() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("守护进程已关闭");
+        }
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) registerTree(root);
+            else if (root.getParent() != null) register(root.getParent());
+        }
+        for (Path file : ProjectExtractor.collectSourceFiles(roots)) schedule(file);
+        watcher.start();
+    }
+
+    /**
+     * 文件中所有方法的最新结果（顺序与 {@link MyExtractor#extractAll} 相同）。
+     * 文件还没有算好时在调用线程上提取并保留结果，不等待后台队列；已排队的同一文件不再重复计算。
+     * 提取失败时原样抛出异常（解析或建图中的非受检异常也一样），并记入 {@link #getFailures()}。
+     *
+     * @throws IllegalArgumentException 文件不在任何源码根之下（范围外的文件收不到变更通知，请直接使用 {@link MyExtractor}）
+     * @throws IOException              文件不存在或无法读取
+     */
+    public List<ExtractionResult> getResults(String pathFile) throws IOException {
+        if (pathFile == null) {
+            throw new IllegalArgumentException("pathFile 不能为 null");
+        }
+        Path file = Paths.get(IncrementalExtractor.canonicalPath(pathFile));
+        String key = file.toString();
+        List<ExtractionResult> cached = results.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (!covers(file)) {
+            throw new IllegalArgumentException("文件不在监视范围内：" + key);
+        }
+        synchronized (lockFor(key)) {
+            // 等锁期间后台线程可能已经算好
+            cached = results.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            pending.remove(file);
+            return refresh(file);
+        }
+    }
+
+    /**
+     * 文件中第一个名为 methodName 的方法的结果，没有该方法时返回 null。
+     */
+    public ExtractionResult getResult(String pathFile, String methodName) throws IOException {
+        if (methodName == null) {
+            throw new IllegalArgumentException("methodName 不能为 null");
+        }
+        for (ExtractionResult r : getResults(pathFile)) {
+            if (r.getMethodName().equals(methodName)) return r;
+        }
+        return null;
+    }
+
+    /**
+     * 最近一次提取失败的文件及原因（读文件、解析或建图中的异常），该文件下次提取成功后移除。
+     */
+    public Map<String, Exception> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * 等待此刻已排队的重算全部完成；超时返回 false。
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            worker.submit(() -> { }).get(timeout, unit);
+            return true;
+        } catch (TimeoutException | RejectedExecutionException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watcher.interrupt();
+        worker.shutdownNow();
+        watchService.close();
+    }
+
+    private void registerTree(Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Iterator<Path> it = walk.filter(Files::isDirectory).iterator(); it.hasNext(); ) {
+                register(it.next());
+            }
+        }
+    }
+
+    private void register(Path dir) throws IOException {
+        WatchKey key = dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        watchedDirs.put(key, dir);
+    }
+
+    private void schedule(Path file) {
+        if (closed || !pending.add(file)) {
+            return;
+        }
+        try {
+            worker.execute(() -> {
+                // 先出队再计算：计算期间文件再次变化会重新排队，不会丢失；已被查询线程取走时跳过
+                if (!pending.remove(file)) return;
+                try {
+                    refresh(file);
+                } catch (IOException | RuntimeException ignored) {
+                    // 已记入 failures，或文件已被删除
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(file);
+        }
+    }
+
+    /**
+     * 重算一个文件并保留结果，失败时移除旧结果并记入 failures；文件已不存在时丢弃其结果并抛出 {@link NoSuchFileException}。
+     */
+    private List<ExtractionResult> refresh(Path file) throws IOException {
+        String key = file.toString();
+        synchronized (lockFor(key)) {
+            if (!Files.isRegularFile(file)) {
+                drop(file);
+                throw new NoSuchFileException(key);
+            }
+            List<ExtractionResult> list;
+            try {
+                list = extractor.extract(key).getResults();
+            } catch (IOException | RuntimeException e) {
+                // 旧结果已不能代表文件当前内容，移除并记录失败
+                results.remove(key);
+                failures.put(key, e);
+                throw e;
+            }
+            results.put(key, list);
+            failures.remove(key);
+            return list;
+        }
+    }
+
+    private Object lockFor(String key) {
+        return locks.computeIfAbsent(key, k -> new Object());
+    }
+
+    private void drop(Path file) {
+        String key = file.toString();
+        results.remove(key);
+        failures.remove(key);
+        extractor.forget(key);
+    }
+
+    private void watchLoop() {
+        while (!closed) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = watchedDirs.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    rescan();
+                    continue;
+                }
+                if (dir == null) continue;
+                Path child = dir.resolve((Path) event.context()).toAbsolutePath().normalize();
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    if (!covers(child)) continue;
+                    // 新目录：加入监视，并补上注册前就已写入的文件
+                    try {
+                        registerTree(child);
+                        for (Path file : ProjectExtractor.collectSourceFiles(Collections.singletonList(child))) {
+                            schedule(file);
+                        }
+                    } catch (IOException ignored) {
+                        // 目录刚建好又被删除，忽略
+                    }
+                } else if (child.toString().endsWith(".java")) {
+                    // 删除也走重算：文件不存在时 refresh 会丢弃结果
+                    if (covers(child)) schedule(child);
+                } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    dropUnder(child);
+                }
+            }
+            if (!key.reset()) {
+                watchedDirs.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 文件是否在某个源码根之下；根是单个文件时我们监视的是它所在的目录，其余兄弟文件不处理。
+     */
+    private boolean covers(Path file) {
+        for (Path root : roots) {
+            if (file.startsWith(root)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 被删除的目录：其下所有已有结果的文件重新排队，由 refresh 丢弃。
+     */
+    private void dropUnder(Path dir) {
+        for (String file : new ArrayList<>(results.keySet())) {
+            Path p = Paths.get(file);
+            if (p.startsWith(dir)) schedule(p);
+        }
+    }
+
+    private void rescan() {
+        try {
+            for (Path root : roots) {
+                if (Files.isDirectory(root)) registerTree(root);
+            }
+            Set<String> seen = new HashSet<>();
+            for (Path file : ProjectExtractor.collectSourceFiles(roots)) {
+                seen.add(file.toString());
+                schedule(file);
+            }
+            for (String file : new ArrayList<>(results.keySet())) {
+                if (!seen.contains(file)) schedule(Paths.get(file));
+            }
+        } catch (IOException ignored) {
+            // 根目录暂时不可访问，等下一次事件再处理
+        }
+    }
+}
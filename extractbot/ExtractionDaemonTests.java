@@ -0,0 +1,175 @@
+package extractbot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * 守护进程：文件修改后结果随之更新；查询尚未算好的文件时不排在后台队列之后，也不重复计算；范围外和不存在的文件报错。
+ */
+public class ExtractionDaemonTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static void write(Path file, String source) throws IOException {
+		Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/* 按方法名列出结果 */
+	private static String names(List<ExtractionResult> results) {
+		StringBuilder sb = new StringBuilder();
+		for (ExtractionResult r : results) {
+			if (sb.length() > 0) sb.append(',');
+			sb.append(r.getMethodName());
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 记录每个文件的提取次数；文件名以 Slow.java 结尾时阻塞到 release 放行，用来占住后台线程。
+	 */
+	private static class RecordingExtractor extends IncrementalExtractor {
+		final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+		final CountDownLatch slowStarted = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public Update extract(String pathFile) throws IOException {
+			calls.computeIfAbsent(canonicalPath(pathFile), k -> new AtomicInteger()).incrementAndGet();
+			if (pathFile.endsWith("Slow.java")) {
+				slowStarted.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return super.extract(pathFile);
+		}
+
+		int callsFor(Path file) {
+			AtomicInteger n = calls.get(canonicalPath(file.toString()));
+			return n == null ? 0 : n.get();
+		}
+	}
+
+	@Test
+	public void testEditUpdatesResults() throws Exception
+	{
+		Path root = folder.newFolder("src").toPath();
+		Path file = root.resolve("A.java");
+		write(file, "class A { void m() { int x = 1; } }");
+
+		try (ExtractionDaemon daemon = new ExtractionDaemon(root)) {
+			daemon.start();
+			assertTrue(daemon.awaitIdle(10, TimeUnit.SECONDS));
+			assertEquals("m", names(daemon.getResults(file.toString())));
+
+			write(file, "class A { void m() { int x = 1; } void n() { int y = 2; } }");
+			// 变更通知到达的时间不确定，反复等待后台队列清空直到结果更新
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+			while (!names(daemon.getResults(file.toString())).equals("m,n")) {
+				assertTrue("结果没有随文件更新", System.nanoTime() < deadline);
+				daemon.awaitIdle(1, TimeUnit.SECONDS);
+				Thread.sleep(50);
+			}
+			assertNotNull(daemon.getResult(file.toString(), "n"));
+			assertTrue(daemon.getFailures().isEmpty());
+
+			Files.delete(file);
+			deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+			while (true) {
+				try {
+					daemon.getResults(file.toString());
+				} catch (NoSuchFileException e) {
+					break;
+				}
+				assertTrue("删除后仍有结果", System.nanoTime() < deadline);
+				daemon.awaitIdle(1, TimeUnit.SECONDS);
+				Thread.sleep(50);
+			}
+		}
+	}
+
+	@Test
+	public void testQueryDoesNotWaitForQueuedWork() throws Exception
+	{
+		Path root = folder.newFolder("src").toPath();
+		Path slow = root.resolve("ASlow.java");
+		Path queued = root.resolve("B.java");
+		write(slow, "class ASlow { void s() { int x = 1; } }");
+		write(queued, "class B { void q() { int y = 2; } }");
+
+		RecordingExtractor extractor = new RecordingExtractor();
+		ExecutorService client = Executors.newSingleThreadExecutor();
+		try (ExtractionDaemon daemon = new ExtractionDaemon(extractor, Collections.singletonList(root))) {
+			daemon.start();
+			// 后台线程卡在 ASlow.java 上，B.java 还在队列里
+			assertTrue(extractor.slowStarted.await(10, TimeUnit.SECONDS));
+			assertFalse(daemon.awaitIdle(100, TimeUnit.MILLISECONDS));
+
+			Future<List<ExtractionResult>> query = client.submit(() -> daemon.getResults(queued.toString()));
+			assertEquals("q", names(query.get(10, TimeUnit.SECONDS)));
+
+			extractor.release.countDown();
+			assertTrue(daemon.awaitIdle(10, TimeUnit.SECONDS));
+			assertEquals("s", names(daemon.getResults(slow.toString())));
+			// 查询线程已经算过，排队的任务不再重复计算
+			assertEquals(1, extractor.callsFor(queued));
+			assertEquals(1, extractor.callsFor(slow));
+		} finally {
+			extractor.release.countDown();
+			client.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testOutOfRootAndMissingFiles() throws Exception
+	{
+		Path root = folder.newFolder("src").toPath();
+		Path outside = folder.newFile("Outside.java").toPath();
+		write(outside, "class Outside { void o() { int x = 1; } }");
+
+		try (ExtractionDaemon daemon = new ExtractionDaemon(root)) {
+			daemon.start();
+			try {
+				daemon.getResults(outside.toString());
+				fail("范围外的文件应当被拒绝");
+			} catch (IllegalArgumentException expected) {
+				// 范围外的文件收不到变更通知，不保留结果
+			}
+			try {
+				daemon.getResults(root.resolve("Missing.java").toString());
+				fail("不存在的文件应当报错");
+			} catch (NoSuchFileException expected) {
+				// 不存在的文件不记为失败
+			}
+			assertNull(daemon.getFailures().get(root.resolve("Missing.java").toString()));
+		}
+	}
+}
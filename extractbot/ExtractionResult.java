@@ -0,0 +1,117 @@
+package extractbot;
+
+/**
+ * 单个方法的提取结果。CFG 在构造时已经建好，主路径和测试路径在第一次访问时由 {@link MyExtractor} 计算并缓存，
+ * 同一个结果对象上的多次查询不会再读文件或重新解析。
+ * <p>
+ * 结果对象会被缓存并在调用方之间共享，公开的 getter 每次返回数组的副本，调用方可以随意排序或修改；
+ * 包内代码用不复制的 {@link #cfg()}、{@link #primePaths()}、{@link #testPaths()}，不能修改返回的数组。
+ */
+public class ExtractionResult {
+
+    private final MyExtractor extractor;
+    private final String typeName;
+    private final String methodName;
+    private final int[][] cfg;
+
+    private int[][] primePaths;
+    private int[][] testPaths;
+    private TestPathReduction testPathReduction;
+
+    ExtractionResult(MyExtractor extractor, String typeName, String methodName, int[][] cfg) {
+        this.extractor = extractor;
+        this.typeName = typeName == null ? "" : typeName;
+        this.methodName = methodName;
+        this.cfg = cfg == null ? new int[0][0] : cfg;
+    }
+
+    /**
+     * 由磁盘缓存恢复的结果：主路径和测试路径已经算好，不再计算。
+     */
+    ExtractionResult(MyExtractor extractor, String typeName, String methodName, int[][] cfg, int[][] primePaths, int[][] testPaths) {
+        this(extractor, typeName, methodName, cfg);
+        this.primePaths = primePaths;
+        this.testPaths = testPaths;
+    }
+
+    /**
+     * 方法所在的类型，嵌套类型用 "." 连接，例如 "ArrayList.SubList"。
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * 是否在源文件中找到了该方法；找到的方法一定有所在类型，文件无法读取或没有该方法时类型名为空串。
+     */
+    public boolean isFound() {
+        return !typeName.isEmpty();
+    }
+
+    public int[][] getControlFlowGraph() {
+        return deepCopy(cfg);
+    }
+
+    public int[][] getTestRequirements() {
+        return deepCopy(primePaths());
+    }
+
+    int[][] cfg() {
+        return cfg;
+    }
+
+    synchronized int[][] primePaths() {
+        if (primePaths == null) {
+            primePaths = extractor.computeTestRequirements(cfg);
+        }
+        return primePaths;
+    }
+
+    /**
+     * 流式枚举主路径，不缓存、不改变 {@link #getTestRequirements()} 的结果。
+     * 适合主路径数量可能极大的方法：调用方可以边收边写出，或通过 limits / visitor 提前停止。
+     *
+     * @return 是否输出了全部主路径
+     */
+    public boolean streamTestRequirements(PrimePathLimits limits, PrimePathVisitor visitor) {
+        return extractor.streamTestRequirements(cfg, limits, visitor);
+    }
+
+    public int[][] getTestPaths() {
+        return deepCopy(testPaths());
+    }
+
+    synchronized int[][] testPaths() {
+        if (testPaths == null) {
+            // CFG 为空时与原先的 getTestPathsInArray 一致，只报告测试路径错误
+            int[][] prime = cfg.length == 0 ? new int[0][0] : primePaths();
+            testPaths = extractor.computeTestPaths(cfg, prime);
+        }
+        return testPaths;
+    }
+
+    /**
+     * 按两种方式各生成一次测试路径，报告合并生成节省的路径条数和节点数；结果缓存，不影响 {@link #getTestPaths()}。
+     */
+    public synchronized TestPathReduction getTestPathReduction() {
+        if (testPathReduction == null) {
+            int[][] prime = cfg.length == 0 ? new int[0][0] : primePaths();
+            testPathReduction = new TestPathReduction(
+                    extractor.computeTestPaths(cfg, prime, MyExtractor.TestPathStrategy.PER_PRIME_PATH),
+                    extractor.computeTestPaths(cfg, prime, MyExtractor.TestPathStrategy.MERGED_TOURS));
+        }
+        return testPathReduction;
+    }
+
+    static int[][] deepCopy(int[][] matrix) {
+        int[][] copy = new int[matrix.length][];
+        for (int i = 0; i < matrix.length; i++) {
+            copy[i] = matrix[i].clone();
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,232 @@
+package extractbot;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务模式：在回环地址上用 JDK 自带的 {@link HttpServer} 提供提取查询，JVM、JDT 和 {@link MyExtractor} 的结果缓存常驻，
+ * 工具链反复调用时不再每次冷启动。
+ * <p>
+ * 请求：{@code GET /extract?file=源文件路径&method=方法名&artifact=cfg|prime|tests|all}（artifact 默认 all）。
+ * 响应为 JSON，例如 {@code {"type":"A","method":"m","cfg":[[0,1]],"prime":[[0,1]],"tests":[[0,1]]}}；
+ * 参数缺失或非法返回 400，文件或方法不存在返回 404，其他 HTTP 方法返回 405，提取过程出错返回 500。
+ * <p>
+ * 请求在固定大小的线程池上处理，排队数有上限；队列满时立即返回 503，不阻塞接收线程，也不无限堆积请求。
+ * 连接保持 HTTP/1.1 长连接。
+ * <p>
+ * JDK HttpServer 默认不开 TCP_NODELAY，长连接上的小响应可能被 Nagle 算法和延迟确认拖慢几十毫秒；
+ * 对延迟敏感时以 {@code -Dsun.net.httpserver.nodelay=true} 启动 JVM，{@link #main} 在未指定时会自动设置。
+ */
+public class ExtractionServer implements AutoCloseable {
+
+    /** 默认端口 */
+    static final int DEFAULT_PORT = 8787;
+
+    private final MyExtractor extractor;
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+
+    public ExtractionServer(MyExtractor extractor, int port) throws IOException {
+        this(extractor, port, Runtime.getRuntime().availableProcessors(), 256);
+    }
+
+    /**
+     * @param port          监听端口，0 表示由系统分配，可用 {@link #getPort()} 取得
+     * @param threads       工作线程数
+     * @param queueCapacity 等待处理的请求数上限，超出时返回 503
+     */
+    public ExtractionServer(MyExtractor extractor, int port, int threads, int queueCapacity) throws IOException {
+        if (extractor == null) {
+            throw new IllegalArgumentException("extractor 不能为 null");
+        }
+        if (threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("threads 和 queueCapacity 必须为正数");
+        }
+        this.extractor = extractor;
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "extractbot-server-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // 处理器在接收线程上只做分派，实际处理交给 workers，队列满时在接收线程上直接回 503
+        this.server.createContext("/extract", this::dispatch);
+        this.server.setExecutor(null);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        try {
+            workers.execute(() -> handle(exchange));
+        } catch (RejectedExecutionException e) {
+            try {
+                respond(exchange, 503, error("服务繁忙，请稍后重试"));
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                respond(exchange, 405, error("只支持 GET"));
+                return;
+            }
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            String file = params.get("file");
+            String method = params.get("method");
+            String artifact = params.getOrDefault("artifact", "all");
+            if (file == null || method == null) {
+                respond(exchange, 400, error("缺少参数 file 或 method"));
+                return;
+            }
+            boolean all = artifact.equals("all");
+            if (!all && !artifact.equals("cfg") && !artifact.equals("prime") && !artifact.equals("tests")) {
+                respond(exchange, 400, error("artifact 只能是 cfg、prime、tests 或 all"));
+                return;
+            }
+
+            if (!Files.isRegularFile(Paths.get(file))) {
+                respond(exchange, 404, error("文件不存在：" + file));
+                return;
+            }
+
+            ExtractionResult r = extractor.extract(file, method);
+            if (!r.isFound()) {
+                respond(exchange, 404, error("找不到方法：" + method));
+                return;
+            }
+            StringBuilder sb = new StringBuilder(256);
+            sb.append("{\"type\":");
+            appendString(sb, r.getTypeName());
+            sb.append(",\"method\":");
+            appendString(sb, r.getMethodName());
+            if (all || artifact.equals("cfg")) appendMatrix(sb.append(",\"cfg\":"), r.cfg());
+            if (all || artifact.equals("prime")) appendMatrix(sb.append(",\"prime\":"), r.primePaths());
+            if (all || artifact.equals("tests")) appendMatrix(sb.append(",\"tests\":"), r.testPaths());
+            sb.append('}');
+            respond(exchange, 200, sb.toString());
+        } catch (Throwable t) {
+            // 包括深层 AST 上的 StackOverflowError；响应头已经发出时无法再改状态码，只能关闭连接
+            if (exchange.getResponseCode() == -1) {
+                try {
+                    respond(exchange, 500, error(String.valueOf(t)));
+                } catch (IOException ignored) {
+                    // 客户端已断开
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String error(String message) {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        appendString(sb, message);
+        return sb.append('}').toString();
+    }
+
+    private static void appendMatrix(StringBuilder sb, int[][] m) {
+        sb.append('[');
+        for (int i = 0; i < m.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append('[');
+            for (int j = 0; j < m[i].length; j++) {
+                if (j > 0) sb.append(',');
+                sb.append(m[i][j]);
+            }
+            sb.append(']');
+        }
+        sb.append(']');
+    }
+
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * 启动服务：参数为端口（默认 {@value #DEFAULT_PORT}），只监听回环地址，直到进程退出。
+     */
+    public static void main(String[] args) throws IOException {
+        // 必须在第一次创建 HttpServer 之前设置，命令行已指定时不覆盖
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        ExtractionServer server = new ExtractionServer(new MyExtractor(), port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "extractbot-server-shutdown"));
+        server.start();
+        System.out.println("extractbot 服务已启动：http://127.0.0.1:" + server.getPort() + "/extract");
+    }
+}
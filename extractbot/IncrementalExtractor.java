@@ -0,0 +1,157 @@
+package extractbot;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 增量提取：记住每个文件上一次提取时各方法的结构指纹和结果，再次提取同一文件时，
+ * 指纹未变的方法直接沿用上次的 CFG、主路径和测试路径，只为新增或结构有变化的方法重新计算。
+ * <p>
+ * 指纹取自方法体的 AST 规范化文本（{@link org.eclipse.jdt.core.dom.ASTNode#toString()}），不含位置和注释，
+ * 只改缩进、换行、注释或移动方法位置都不会改变指纹；节点编号每个方法从 0 开始，结构相同的方法体 CFG 也相同。
+ * 主路径算法和测试路径生成方式也计入指纹，切换后所有方法都会重新计算。
+ * <p>
+ * 指纹表本身只在内存中。所用的 {@link MyExtractor} 设置了磁盘缓存目录时，结果还会按指纹写入该目录，
+ * 进程重启后指纹未变的方法从磁盘读回，同样计为沿用；未设置时重启后的第一次提取会把所有方法当作有变化。
+ */
+public class IncrementalExtractor {
+
+    private final MyExtractor extractor;
+    /** {@link #canonicalPath} -> (指纹 -> 上一次的结果) */
+    private final Map<String, Map<String, ExtractionResult>> previous = new ConcurrentHashMap<>();
+
+    public IncrementalExtractor() {
+        this(new MyExtractor());
+    }
+
+    public IncrementalExtractor(MyExtractor extractor) {
+        if (extractor == null) {
+            throw new IllegalArgumentException("extractor 不能为 null");
+        }
+        this.extractor = extractor;
+    }
+
+    public MyExtractor getExtractor() {
+        return extractor;
+    }
+
+    /**
+     * 一次增量提取的结果：按源码顺序排列的全部方法，以及沿用和重新计算的方法数。
+     */
+    public static class Update {
+        private final List<ExtractionResult> results;
+        private final int reused;
+        private final int recomputed;
+
+        Update(List<ExtractionResult> results, int reused, int recomputed) {
+            this.results = Collections.unmodifiableList(results);
+            this.reused = reused;
+            this.recomputed = recomputed;
+        }
+
+        public List<ExtractionResult> getResults() {
+            return results;
+        }
+
+        public int getReusedCount() {
+            return reused;
+        }
+
+        public int getRecomputedCount() {
+            return recomputed;
+        }
+
+        @Override
+        public String toString() {
+            return results.size() + " 个方法，沿用 " + reused + "，重新计算 " + recomputed;
+        }
+    }
+
+    /**
+     * 解析文件并为其中所有带方法体的方法给出结果（范围与 {@link MyExtractor#extractAll} 相同），主路径和测试路径都已算好。
+     * 与上一次提取同一文件相比指纹未变的方法沿用上次的结果，只更新类型名和方法名；本次的指纹表替换上一次的。
+     */
+    public Update extract(String pathFile) throws IOException {
+        if (pathFile == null) {
+            throw new IllegalArgumentException("pathFile 不能为 null");
+        }
+        String file = canonicalPath(pathFile);
+        CompilationUnit unit = extractor.parseFile(file);
+        List<MethodDeclaration> methods = extractor.collectMethods(unit);
+        Map<String, ExtractionResult> before = previous.getOrDefault(file, Collections.emptyMap());
+        Map<String, ExtractionResult> after = new HashMap<>();
+        String settings = extractor.resultSettings();
+        DiskCache cache = extractor.diskCache();
+
+        List<ExtractionResult> results = new ArrayList<>(methods.size());
+        int reused = 0;
+        for (MethodDeclaration m : methods) {
+            String typeName = extractor.declaringTypeName(m);
+            String methodName = m.getName().getIdentifier();
+            String fp = fingerprint(m, settings);
+
+            ExtractionResult old = before.get(fp);
+            if (old == null) old = after.get(fp);
+            ExtractionResult r;
+            if (old != null) {
+                r = new ExtractionResult(extractor, typeName, methodName,
+                        old.cfg(), old.primePaths(), old.testPaths());
+                reused++;
+            } else {
+                // 进程重启后内存中的指纹表为空，开启磁盘缓存时再按指纹查一次磁盘
+                int[][][] entry = cache == null ? null : cache.load(fp);
+                if (entry != null) {
+                    r = new ExtractionResult(extractor, typeName, methodName, entry[0], entry[1], entry[2]);
+                    reused++;
+                } else {
+                    r = extractor.buildResult(m, unit, typeName, methodName);
+                    if (cache != null && r.cfg().length > 0) {
+                        cache.store(fp, r.cfg(), r.primePaths(), r.testPaths());
+                    } else {
+                        r.primePaths();
+                        r.testPaths();
+                    }
+                }
+            }
+            after.put(fp, r);
+            results.add(r);
+        }
+        previous.put(file, after);
+        return new Update(results, reused, methods.size() - reused);
+    }
+
+    /**
+     * 丢弃某个文件的指纹表，例如文件被删除时；下一次提取该文件会全部重新计算。
+     */
+    public void forget(String pathFile) {
+        if (pathFile == null) {
+            throw new IllegalArgumentException("pathFile 不能为 null");
+        }
+        previous.remove(canonicalPath(pathFile));
+    }
+
+    public void clear() {
+        previous.clear();
+    }
+
+    /**
+     * 指纹表使用的文件键：规范化的绝对路径，不解析符号链接，文件删除后仍能算出同一个键。
+     */
+    static String canonicalPath(String pathFile) {
+        return Paths.get(pathFile).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * 方法体的结构指纹：版本、设置和方法体规范化文本的 SHA-256。
+     */
+    static String fingerprint(MethodDeclaration method, String settings) {
+        String body = method.getBody() == null ? "" : method.getBody().toString();
+        // 设置前加上 "body/"，与按方法源码计算的磁盘缓存键分开
+        return DiskCache.key(MyExtractor.EXTRACTOR_VERSION, "body/" + settings, body);
+    }
+}
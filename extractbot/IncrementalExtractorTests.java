@@ -0,0 +1,145 @@
+package extractbot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * 增量提取的沿用与重算：只改格式或注释时全部沿用，改动方法体时只重算该方法，切换设置时全部重算，
+ * 开启磁盘缓存时重启后的第一次提取从磁盘读回。
+ */
+public class IncrementalExtractorTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file;
+
+	private static final String SOURCE =
+			"class A {\n"
+			+ "	int sum(int n) { int s = 0; for (int i = 0; i < n; i++) { s += i; } return s; }\n"
+			+ "	int abs(int x) { int y = x; if (y < 0) { y = -y; } return y; }\n"
+			+ "	void loop(int n) { n++; while (n > 0) { n--; } }\n"
+			+ "}\n";
+
+	/* 与 SOURCE 结构相同，只改了缩进、换行和注释 */
+	private static final String REFORMATTED =
+			"class A {\n"
+			+ "\n"
+			+ "	// 求和\n"
+			+ "	int sum(int n) {\n"
+			+ "		int s = 0;\n"
+			+ "		for (int i = 0; i < n; i++) {\n"
+			+ "			s += i;    /* 累加 */\n"
+			+ "		}\n"
+			+ "		return s;\n"
+			+ "	}\n"
+			+ "\n"
+			+ "	int abs(int x) {\n"
+			+ "		int y = x;\n"
+			+ "		if (y < 0) { y = -y; }\n"
+			+ "		return y;\n"
+			+ "	}\n"
+			+ "\n"
+			+ "	void loop(int n) { n++; while (n > 0) { n--; } }\n"
+			+ "}\n";
+
+	/* 只改动 abs 的方法体 */
+	private static final String ABS_CHANGED =
+			"class A {\n"
+			+ "	int sum(int n) { int s = 0; for (int i = 0; i < n; i++) { s += i; } return s; }\n"
+			+ "	int abs(int x) { int y = x; if (y < 0) { return -y; } return y; }\n"
+			+ "	void loop(int n) { n++; while (n > 0) { n--; } }\n"
+			+ "}\n";
+
+	@Before
+	public void setUp() throws IOException {
+		file = folder.newFile("A.java").toPath();
+	}
+
+	private IncrementalExtractor.Update extract(IncrementalExtractor extractor, String source) throws IOException {
+		Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+		return extractor.extract(file.toString());
+	}
+
+	private static void assertCounts(int reused, int recomputed, IncrementalExtractor.Update update) {
+		assertEquals(update.toString(), reused, update.getReusedCount());
+		assertEquals(update.toString(), recomputed, update.getRecomputedCount());
+	}
+
+	@Test
+	public void testFormattingOnlyEditReusesAll() throws IOException
+	{
+		IncrementalExtractor extractor = new IncrementalExtractor();
+		IncrementalExtractor.Update first = extract(extractor, SOURCE);
+		assertCounts(0, 3, first);
+
+		IncrementalExtractor.Update second = extract(extractor, REFORMATTED);
+		assertCounts(3, 0, second);
+		List<ExtractionResult> before = first.getResults();
+		List<ExtractionResult> after = second.getResults();
+		for (int i = 0; i < before.size(); i++) {
+			assertEquals(before.get(i).getMethodName(), after.get(i).getMethodName());
+			assertArrayEquals(before.get(i).getControlFlowGraph(), after.get(i).getControlFlowGraph());
+			assertArrayEquals(before.get(i).getTestPaths(), after.get(i).getTestPaths());
+		}
+	}
+
+	@Test
+	public void testBodyChangeRecomputesOnlyThatMethod() throws IOException
+	{
+		IncrementalExtractor extractor = new IncrementalExtractor();
+		extract(extractor, SOURCE);
+		assertCounts(2, 1, extract(extractor, ABS_CHANGED));
+
+		// 改回原样：指纹表只保留上一次的内容，abs 再次重算
+		assertCounts(2, 1, extract(extractor, SOURCE));
+	}
+
+	@Test
+	public void testSettingsChangeRecomputesAll() throws IOException
+	{
+		MyExtractor my = new MyExtractor();
+		IncrementalExtractor extractor = new IncrementalExtractor(my);
+		extract(extractor, SOURCE);
+
+		my.setTestPathStrategy(MyExtractor.TestPathStrategy.MERGED_TOURS);
+		assertCounts(0, 3, extract(extractor, SOURCE));
+		assertCounts(3, 0, extract(extractor, SOURCE));
+
+		my.setPrimePathAlgorithm(MyExtractor.PrimePathAlgorithm.ENUMERATE_AND_FILTER);
+		assertCounts(0, 3, extract(extractor, SOURCE));
+	}
+
+	@Test
+	public void testRestartReadsFromDiskCache() throws IOException
+	{
+		Path cacheDir = folder.getRoot().toPath().resolve("cache");
+		MyExtractor my = new MyExtractor();
+		my.setCacheDirectory(cacheDir);
+		List<ExtractionResult> before = extract(new IncrementalExtractor(my), SOURCE).getResults();
+
+		// 新的进程：内存中的指纹表为空，同一个缓存目录
+		MyExtractor restarted = new MyExtractor();
+		restarted.setCacheDirectory(cacheDir);
+		IncrementalExtractor.Update update = extract(new IncrementalExtractor(restarted), REFORMATTED);
+		assertCounts(3, 0, update);
+		for (int i = 0; i < before.size(); i++) {
+			assertArrayEquals(before.get(i).getTestRequirements(), update.getResults().get(i).getTestRequirements());
+		}
+
+		// 没有缓存目录时重启后全部重算
+		assertCounts(0, 3, extract(new IncrementalExtractor(), SOURCE));
+	}
+}
@@ -0,0 +1,140 @@
+package extractbot;
+
+import cn.edu.whu.cstar.testingcourse.cfgparser.LogItem;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * LogItem 的字段布局，每个 JVM 只解析一次。
+ * <p>
+ * 不同版本的 cfgparser 对列号、类型、内容字段的命名不一致，这里按与原先相同的候选名顺序查找，
+ * 找到后转换成签名固定的 {@link MethodHandle}（数值字段统一成 int 返回），读取时不再走 {@code Field.get} 和装箱。
+ */
+final class LogItemLayout {
+
+    private static final String[] START_X_CANDIDATES = {"startX", "startx", "start_col", "startColumn", "start_x", "position"};
+    private static final String[] KIND_CANDIDATES = {"strType", "nodeType", "type"};
+    private static final String[] CODE_CANDIDATES = {"content", "strContent", "code"};
+
+    private static final MethodType INT_GETTER = MethodType.methodType(int.class, LogItem.class);
+    private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, LogItem.class);
+
+    /** 必需字段缺失时记录原因，每次读取时抛出，由调用方按原逻辑处理为空结果 */
+    private static final Exception MISSING;
+
+    private static final MethodHandle CUR;
+    private static final MethodHandle PARENT;
+    private static final MethodHandle HEIGHT;
+    private static final MethodHandle START_X;
+    private static final MethodHandle KIND;
+    private static final MethodHandle CODE;
+
+    static {
+        MethodHandle cur = null, parent = null, height = null;
+        Exception missing = null;
+        try {
+            cur = getter(LogItem.class.getDeclaredField("indexNodeCurrent"), INT_GETTER);
+            parent = getter(LogItem.class.getDeclaredField("indexNodeParent"), INT_GETTER);
+            height = getter(LogItem.class.getDeclaredField("height"), INT_GETTER);
+        } catch (Exception e) {
+            missing = e;
+        }
+        MISSING = missing;
+        CUR = cur;
+        PARENT = parent;
+        HEIGHT = height;
+        START_X = optionalGetter(START_X_CANDIDATES, INT_GETTER);
+        KIND = optionalGetter(KIND_CANDIDATES, OBJECT_GETTER);
+        CODE = optionalGetter(CODE_CANDIDATES, OBJECT_GETTER);
+    }
+
+    private LogItemLayout() {
+    }
+
+    private static MethodHandle getter(Field field, MethodType type) throws IllegalAccessException {
+        field.setAccessible(true);
+        return MethodHandles.lookup().unreflectGetter(field).asType(type);
+    }
+
+    private static MethodHandle optionalGetter(String[] candidates, MethodType type) {
+        for (String name : candidates) {
+            Field field;
+            try {
+                field = LogItem.class.getDeclaredField(name);
+            } catch (NoSuchFieldException ignored) {
+                continue;
+            }
+            // 与原先一致：取第一个存在的候选名；类型不匹配时视为没有该字段
+            try {
+                return getter(field, type);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    static void requireCoreFields() {
+        if (MISSING != null) throw new IllegalStateException("LogItem 缺少必需字段", MISSING);
+    }
+
+    static int current(LogItem item) {
+        return readInt(CUR, item);
+    }
+
+    static int parent(LogItem item) {
+        return readInt(PARENT, item);
+    }
+
+    static int height(LogItem item) {
+        return readInt(HEIGHT, item);
+    }
+
+    /**
+     * 读取列号；没有列号字段或字段为 null 时返回 fallback（即节点在列表中的序号）。
+     */
+    static int startX(LogItem item, int fallback) {
+        if (START_X == null) return fallback;
+        try {
+            return (int) START_X.invokeExact(item);
+        } catch (Throwable ignored) {
+            return fallback;
+        }
+    }
+
+    static String kind(LogItem item) {
+        return KIND == null ? "" : readString(KIND, item);
+    }
+
+    static String code(LogItem item) {
+        return CODE == null ? "" : readString(CODE, item);
+    }
+
+    /**
+     * invokeExact 声明抛出 Throwable，在这里统一转换：getter 只会抛出非受检异常，其他情况包装成 IllegalStateException。
+     */
+    private static int readInt(MethodHandle getter, LogItem item) {
+        try {
+            return (int) getter.invokeExact(item);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("读取 LogItem 字段失败", t);
+        }
+    }
+
+    private static String readString(MethodHandle getter, LogItem item) {
+        Object obj;
+        try {
+            obj = (Object) getter.invokeExact(item);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("读取 LogItem 字段失败", t);
+        }
+        return obj == null ? "" : obj.toString();
+    }
+}
@@ -1,15 +1,15 @@
 package extractbot;
 
 import extractbot.tool.BaseExtractor;
-import cn.edu.whu.cstar.testingcourse.cfgparser.CfgNodeVisitor;
 import cn.edu.whu.cstar.testingcourse.cfgparser.LogItem;
 import org.eclipse.jdt.core.dom.*;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.util.*;
+import java.util.function.Supplier;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 public class MyExtractor extends BaseExtractor {
@@ -17,6 +17,7 @@ public class MyExtractor extends BaseExtractor {
     // 节点信息类
     /**
      * 用于保存解析到的 CFG 节点信息。位置字段（startX）用于保持源码顺序，kind/parent 用于识别循环结构。
+     * 节点类别 nodeKind 与在父结构中的角色 role 在构造时由 kind 字符串算好，之后的结构判断都只比较枚举。
      */
     static class NodeInfo {
         final int id;
@@ -24,7 +25,9 @@ public class MyExtractor extends BaseExtractor {
         final int height;
         final int startX;
         final String kind;
-        final String code;    // 节点对应的源码片段，例如 "for (int i=0; i < length; i++) {}"
+        final String code;    // 节点对应的源码片段，例如 "for (int i=0; i < length; i++) {}"；未开启 captureSnippets 时为 ""
+        final NodeKind nodeKind;
+        final NodeRole role;
 
         NodeInfo(int id, int parent, int height, int startX, String kind, String code) {
             this.id = id;
@@ -33,178 +36,376 @@ public class MyExtractor extends BaseExtractor {
             this.startX = startX;
             this.kind = kind == null ? "" : kind;
             this.code = code == null ? "" : code;
+            this.nodeKind = classify(this.kind);
+            this.role = roleOf(this.kind);
         }
     }
 
+    /**
+     * 主路径算法：INCREMENTAL 为 Ammann–Offutt 增量算法（默认）；ENUMERATE_AND_FILTER 先枚举全部简单路径再两两过滤，
+     * 结果相同，只用于对照。
+     */
+    public enum PrimePathAlgorithm {INCREMENTAL, ENUMERATE_AND_FILTER}
+
+    private volatile PrimePathAlgorithm primePathAlgorithm = PrimePathAlgorithm.INCREMENTAL;
+
+    public PrimePathAlgorithm getPrimePathAlgorithm() {
+        return primePathAlgorithm;
+    }
+
+    public void setPrimePathAlgorithm(PrimePathAlgorithm primePathAlgorithm) {
+        if (primePathAlgorithm == null) {
+            throw new IllegalArgumentException("primePathAlgorithm 不能为 null");
+        }
+        this.primePathAlgorithm = primePathAlgorithm;
+        resultCache.clear();
+    }
+
+    /**
+     * 测试路径生成方式：PER_PRIME_PATH 为每条主路径拼上入口前缀和出口后缀（默认）；
+     * MERGED_TOURS 把多条主路径贪心地串进同一条入口到出口的路径，测试路径更少，总节点数通常也更少。
+     */
+    public enum TestPathStrategy {PER_PRIME_PATH, MERGED_TOURS}
+
+    private volatile TestPathStrategy testPathStrategy = TestPathStrategy.PER_PRIME_PATH;
+
+    public TestPathStrategy getTestPathStrategy() {
+        return testPathStrategy;
+    }
+
+    public void setTestPathStrategy(TestPathStrategy testPathStrategy) {
+        if (testPathStrategy == null) {
+            throw new IllegalArgumentException("testPathStrategy 不能为 null");
+        }
+        this.testPathStrategy = testPathStrategy;
+        resultCache.clear();
+    }
+
+    private volatile boolean captureSnippets = false;
+
+    public boolean isCaptureSnippets() {
+        return captureSnippets;
+    }
+
+    /**
+     * 是否在 NodeInfo 中保留每个节点的源码片段（默认关闭）。边构造只用到 kind 和位置，
+     * 关闭时不读取也不截取源码字符串，批量提取时不会因此长期占用大量重复的源码文本。
+     */
+    public void setCaptureSnippets(boolean captureSnippets) {
+        this.captureSnippets = captureSnippets;
+    }
+
+    /** CFG 节点数达到该值时才按起点并行计算主路径，小方法的任务调度开销大于收益 */
+    static final int PARALLEL_PRIME_PATH_THRESHOLD = 32;
+
+    private volatile boolean parallelPrimePaths = true;
+
+    public boolean isParallelPrimePaths() {
+        return parallelPrimePaths;
+    }
+
+    /**
+     * 是否对较大的方法按起点并行计算主路径（默认开启）；结果及顺序与顺序计算相同。
+     */
+    public void setParallelPrimePaths(boolean parallelPrimePaths) {
+        this.parallelPrimePaths = parallelPrimePaths;
+    }
+
+    /** 结果缓存的默认条目数 */
+    static final int DEFAULT_RESULT_CACHE_CAPACITY = 256;
+
+    private final ResultCache resultCache = new ResultCache(DEFAULT_RESULT_CACHE_CAPACITY);
+
+    public int getResultCacheCapacity() {
+        return resultCache.getCapacity();
+    }
+
+    /**
+     * 设置 {@link #extract} 结果缓存的最大条目数（默认 {@value #DEFAULT_RESULT_CACHE_CAPACITY}），超出时淘汰最久未使用的条目；
+     * 0 表示不缓存。切换主路径算法或测试路径生成方式时缓存会被清空。
+     */
+    public void setResultCacheCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity 不能为负数");
+        }
+        resultCache.setCapacity(capacity);
+    }
+
+    public CacheStats getResultCacheStats() {
+        return resultCache.stats();
+    }
+
+    public void clearResultCache() {
+        resultCache.clear();
+    }
+
+    /** 提取器版本，参与磁盘缓存键；建边或路径算法的输出有变化时需要递增，旧缓存随之失效 */
+    static final String EXTRACTOR_VERSION = "1";
+
+    /** 编译单元上保存源码文本的属性名，用于截取方法源码计算磁盘缓存键 */
+    private static final String SOURCE_PROPERTY = "extractbot.source";
+
+    private volatile DiskCache diskCache;
+
+    public Path getCacheDirectory() {
+        DiskCache cache = diskCache;
+        return cache == null ? null : cache.getDirectory();
+    }
+
+    /**
+     * 设置磁盘缓存目录（默认 null，不使用磁盘缓存）。开启后每个方法的 CFG、主路径和测试路径按方法源码的哈希保存在该目录下，
+     * 进程重启后源码未变的方法直接读缓存；损坏或版本不符的缓存文件会被删除并重新计算。
+     */
+    public void setCacheDirectory(Path dir) throws IOException {
+        diskCache = dir == null ? null : new DiskCache(dir);
+    }
+
     @Override
     public int[][] getControlFlowGraphInArray(String pathFile, String methodName) {
+        return extract(pathFile, methodName).getControlFlowGraph();
+    }
+
+    /**
+     * 读取并解析一次源文件，为指定方法构造 CFG。
+     * 返回的结果对象在首次访问时才计算主路径和测试路径并缓存，三个入口共用同一份 CFG，不再重复解析。
+     * 文件未改动（修改时间和大小不变）时直接返回缓存的结果对象。
+     */
+    public ExtractionResult extract(String pathFile, String methodName) {
         if (pathFile == null || methodName == null) {
             throw new IllegalArgumentException("pathFile 或 methodName 不能为 null");
         }
+        if (resultCache.getCapacity() == 0) {
+            return extractUncached(pathFile, methodName);
+        }
 
+        ResultCache.Key key;
+        try {
+            key = ResultCache.Key.of(pathFile, methodName);
+        } catch (IOException e) {
+            // 文件不存在或无法访问：不缓存，按原逻辑返回空结果
+            return extractUncached(pathFile, methodName);
+        }
+        ExtractionResult cached = resultCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        ExtractionResult result = extractUncached(pathFile, methodName);
+        resultCache.put(key, result);
+        return result;
+    }
 
+    private ExtractionResult extractUncached(String pathFile, String methodName) {
         // 1. 读取源文件
         String source;
         try {
             source = new String(Files.readAllBytes(Paths.get(pathFile)), StandardCharsets.UTF_8);
         } catch (IOException e) {
-            return new int[0][0];
+            return new ExtractionResult(this, "", methodName, new int[0][0]);
         }
 
-        ASTParser parser = ASTParser.newParser(AST.JLS8);
-        parser.setKind(ASTParser.K_COMPILATION_UNIT);
-        parser.setSource(source.toCharArray());
-        parser.setResolveBindings(false);
-        CompilationUnit unit = (CompilationUnit) parser.createAST(null);
+        CompilationUnit unit = parse(source);
 
         @SuppressWarnings("unchecked")
         List<TypeDeclaration> types = unit.types();
         if (types == null || types.isEmpty()) {
-            return new int[0][0];
+            return new ExtractionResult(this, "", methodName, new int[0][0]);
         }
 
-        MethodDeclaration targetMethod = null;
-        outer:
         for (TypeDeclaration type : types) {
             for (MethodDeclaration m : type.getMethods()) {
                 if (m.getName().getIdentifier().equals(methodName)) {
-                    targetMethod = m;
-                    break outer;
+                    return resultFor(m, unit, type.getName().getIdentifier(), methodName);
                 }
             }
         }
+        return new ExtractionResult(this, "", methodName, new int[0][0]);
+    }
 
-        if (targetMethod == null || targetMethod.getBody() == null) {
-            return new int[0][0];
-        }
-
-        // 重置访问器中的静态计数器，保证每次调用编号一致
-        try {
-            Field indexField = CfgNodeVisitor.class.getDeclaredField("indexNode");
-            indexField.setAccessible(true);
-            indexField.setInt(null, 0);
+    ExtractionResult resultFor(MethodDeclaration method, CompilationUnit unit, String typeName, String methodName) {
+        return resultFor(method, typeName, methodName, () -> buildControlFlowGraph(method, unit));
+    }
 
-            Field counterField = CfgNodeVisitor.class.getDeclaredField("counterReturnStmt");
-            counterField.setAccessible(true);
-            counterField.setInt(null, 0);
-        } catch (Exception ignored) {}
+    /**
+     * 不经过磁盘缓存直接构造结果，主路径和测试路径在首次访问时计算。
+     */
+    ExtractionResult buildResult(MethodDeclaration method, CompilationUnit unit, String typeName, String methodName) {
+        return new ExtractionResult(this, typeName, methodName, buildControlFlowGraph(method, unit));
+    }
 
-        CfgNodeVisitor visitor = new CfgNodeVisitor(targetMethod, unit);
-        targetMethod.getBody().accept(visitor);
+    DiskCache diskCache() {
+        return diskCache;
+    }
 
-        if (visitor.getCounterReturnStmt() == 0) {
-            visitor.addPseudoReturnStmt();
+    /**
+     * 未开启磁盘缓存时直接用 cfgBuilder 构造结果，主路径和测试路径仍在首次访问时计算。
+     * 开启时先按方法源码的哈希查找缓存；未命中则立即算出主路径和测试路径并写回，空 CFG 不写入。
+     * cfgBuilder 和路径计算中的异常原样抛给调用者。
+     */
+    ExtractionResult resultFor(MethodDeclaration method, String typeName, String methodName,
+                               Supplier<int[][]> cfgBuilder) {
+        DiskCache cache = diskCache;
+        String source = cache == null ? null : methodSource(method);
+        if (source == null) {
+            return new ExtractionResult(this, typeName, methodName, cfgBuilder.get());
         }
-        visitor.updateParent();
-
-        try {
-            Field listField = CfgNodeVisitor.class.getDeclaredField("listLogItem");
-            listField.setAccessible(true);
-            @SuppressWarnings("unchecked")
-            List<LogItem> items = (List<LogItem>) listField.get(visitor);
 
-            if (items == null || items.isEmpty()) {
-                return new int[0][0];
-            }
-
-            List<NodeInfo> nodeInfos = parseNodeInfos(items);
-            List<int[]> edges = buildCFGEdges(nodeInfos);
+        String key = DiskCache.key(EXTRACTOR_VERSION, resultSettings(), source);
+        int[][][] entry = cache.load(key);
+        if (entry != null) {
+            return new ExtractionResult(this, typeName, methodName, entry[0], entry[1], entry[2]);
+        }
+        ExtractionResult result = new ExtractionResult(this, typeName, methodName, cfgBuilder.get());
+        if (result.cfg().length > 0) {
+            cache.store(key, result.cfg(), result.primePaths(), result.testPaths());
+        }
+        return result;
+    }
 
-            int[][] result = new int[edges.size()][2];
-            for (int i = 0; i < edges.size(); i++) {
-                result[i][0] = edges.get(i)[0];
-                result[i][1] = edges.get(i)[1];
-            }
+    /**
+     * 影响主路径和测试路径输出的设置，参与缓存键和指纹。
+     */
+    String resultSettings() {
+        return primePathAlgorithm + "/" + testPathStrategy;
+    }
 
+    /**
+     * 方法声明（含注释、修饰符和签名）在源码中的原文；编译单元不是由 {@link #parse} 得到时返回 null。
+     * 节点编号每个方法都从 0 开始，CFG 只取决于这段文本，与方法在文件中的位置无关。
+     */
+    private static String methodSource(MethodDeclaration method) {
+        Object source = method.getRoot().getProperty(SOURCE_PROPERTY);
+        if (!(source instanceof String)) return null;
+        String text = (String) source;
+        int start = method.getStartPosition();
+        int end = start + method.getLength();
+        return start >= 0 && end <= text.length() ? text.substring(start, end) : null;
+    }
 
-            return result;
+    /**
+     * 批量模式：只解析一次源文件，为其中所有带方法体的方法（包括嵌套类、局部类和匿名类中的方法）构造 CFG。
+     * 结果按方法在源码中出现的顺序排列，重载方法各占一项。
+     */
+    public List<ExtractionResult> extractAll(String pathFile) throws IOException {
+        if (pathFile == null) {
+            throw new IllegalArgumentException("pathFile 不能为 null");
+        }
+        CompilationUnit unit = parseFile(pathFile);
+        List<MethodDeclaration> methods = collectMethods(unit);
 
-        } catch (Exception e) {
-            return new int[0][0];
+        List<ExtractionResult> results = new ArrayList<>(methods.size());
+        for (MethodDeclaration m : methods) {
+            results.add(resultFor(m, unit, declaringTypeName(m), m.getName().getIdentifier()));
         }
+        return results;
     }
 
+    CompilationUnit parseFile(String pathFile) throws IOException {
+        String source = new String(Files.readAllBytes(Paths.get(pathFile)), StandardCharsets.UTF_8);
+        return parse(source);
+    }
 
-    private List<NodeInfo> parseNodeInfos(List<LogItem> items) throws Exception {
-        List<NodeInfo> nodeInfos = new ArrayList<>();
-
-        Field curField    = LogItem.class.getDeclaredField("indexNodeCurrent");
-        Field parentField = LogItem.class.getDeclaredField("indexNodeParent");
-        Field heightField = LogItem.class.getDeclaredField("height");
+    /**
+     * 按源码顺序收集编译单元中所有带方法体的方法，包括嵌套类、局部类和匿名类中的方法。
+     */
+    List<MethodDeclaration> collectMethods(CompilationUnit unit) {
+        List<MethodDeclaration> methods = new ArrayList<>();
+        unit.accept(new ASTVisitor() {
+            @Override
+            public boolean visit(MethodDeclaration node) {
+                if (node.getBody() != null) {
+                    methods.add(node);
+                }
+                return true;
+            }
+        });
+        return methods;
+    }
 
-        Field startXField = null;
-        String[] startXCandidates = {"startX", "startx", "start_col", "startColumn", "start_x", "position"};
-        for (String name : startXCandidates) {
-            try {
-                startXField = LogItem.class.getDeclaredField(name);
-                break;
-            } catch (NoSuchFieldException ignored) {}
+    /**
+     * 由外向内拼出方法所在类型的名字，例如 "ArrayList.SubList"；匿名类记为 "外层类型.new 接口名"。
+     */
+    String declaringTypeName(MethodDeclaration method) {
+        Deque<String> names = new ArrayDeque<>();
+        ASTNode cur = method.getParent();
+        while (cur != null) {
+            if (cur instanceof AbstractTypeDeclaration) {
+                names.addFirst(((AbstractTypeDeclaration) cur).getName().getIdentifier());
+            } else if (cur instanceof AnonymousClassDeclaration) {
+                ASTNode creation = cur.getParent();
+                if (creation instanceof ClassInstanceCreation) {
+                    names.addFirst("new " + ((ClassInstanceCreation) creation).getType());
+                } else {
+                    names.addFirst("new");
+                }
+            }
+            cur = cur.getParent();
         }
+        return String.join(".", names);
+    }
 
-        // 2) 可能的“类型字段名”和“内容字段名”
-        Field kindField = null;
+    private CompilationUnit parse(String source) {
+        ASTParser parser = ASTParser.newParser(AST.JLS8);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        parser.setSource(source.toCharArray());
+        parser.setResolveBindings(false);
+        CompilationUnit unit = (CompilationUnit) parser.createAST(null);
+        unit.setProperty(SOURCE_PROPERTY, source);
+        return unit;
+    }
 
-        String[] kindCandidates = {"strType", "nodeType", "type"};
-        for (String name : kindCandidates) {
-            try {
-                kindField = LogItem.class.getDeclaredField(name);
-                break;
-            } catch (NoSuchFieldException ignored) {}
+    private int[][] buildControlFlowGraph(MethodDeclaration targetMethod, CompilationUnit unit) {
+        if (targetMethod == null || targetMethod.getBody() == null) {
+            return new int[0][0];
         }
 
-        // 内容字段名候选
-        Field codeField = null;
-        String[] codeCandidates = {"content", "strContent", "code"};
-        for (String name : codeCandidates) {
-            try {
-                codeField = LogItem.class.getDeclaredField(name);
-                break;
-            } catch (NoSuchFieldException ignored) {}
+        // 边构造已不再递归，但 JDT 的访问器本身仍是递归的，极深的嵌套依然可能栈溢出
+        try {
+            List<LogItem> items = CfgNodeNumbering.visit(targetMethod, unit);
+            if (items.isEmpty()) {
+                return new int[0][0];
+            }
+            return buildEdgeArray(items);
+        } catch (Exception | StackOverflowError e) {
+            return new int[0][0];
         }
+    }
+
+    /**
+     * 由访问器输出的 LogItem 构造 CFG 边数组；与 {@link #buildControlFlowGraph} 不同，出错时直接抛出异常，供批量驱动逐项记录。
+     */
+    int[][] buildEdgeArray(List<LogItem> items) {
+        List<NodeInfo> nodeInfos = parseNodeInfos(items);
+        return buildCFGEdges(nodeInfos).toArray();
+    }
+
 
-        curField.setAccessible(true);
-        parentField.setAccessible(true);
-        heightField.setAccessible(true);
-        if (startXField != null) startXField.setAccessible(true);
-        if (kindField != null) kindField.setAccessible(true);
-        if (codeField != null) codeField.setAccessible(true);
+    private List<NodeInfo> parseNodeInfos(List<LogItem> items) {
+        LogItemLayout.requireCoreFields();
+        List<NodeInfo> nodeInfos = new ArrayList<>(items.size());
+        boolean capture = captureSnippets;
 
         int idx = 0;
         for (LogItem item : items) {
-            int cur    = (Integer) curField.get(item);
-            int parent = (Integer) parentField.get(item);
-            int height = (Integer) heightField.get(item);
-
-            int startX = idx;
-            if (startXField != null) {
-                try {
-                    startX = (Integer) startXField.get(item);
-                } catch (Exception ignored) {}
-            }
-
-            String kind = "";
-            if (kindField != null) {
-                Object obj = kindField.get(item);
-                if (obj != null) {
-                    kind = obj.toString();
-                }
-            }
+            int cur    = LogItemLayout.current(item);
+            int parent = LogItemLayout.parent(item);
+            int height = LogItemLayout.height(item);
+            int startX = LogItemLayout.startX(item, idx);
 
+            String kind = LogItemLayout.kind(item);
             String code = "";
-            if (codeField != null) {
-                Object obj = codeField.get(item);
-                if (obj != null) {
-                    code = obj.toString();
-                }
-            }
 
             // 如果 kind 为空，而 code 里包含 "@"，尝试拆出前缀当作 kind
-            if ((kind == null || kind.isEmpty()) && code != null) {
-                int at = code.indexOf('@');
+            if (kind.isEmpty()) {
+                String raw = LogItemLayout.code(item);
+                int at = raw.indexOf('@');
                 if (at >= 0) {
-                    kind = code.substring(0, at);
-                    code = code.substring(at + 1);  // 去掉前缀后的源码字符串
+                    kind = raw.substring(0, at);
+                    if (capture) code = raw.substring(at + 1);  // 去掉前缀后的源码字符串
+                } else if (capture) {
+                    code = raw;
                 }
+            } else if (capture) {
+                code = LogItemLayout.code(item);
             }
 
             nodeInfos.add(new NodeInfo(cur, parent, height, startX, kind, code));
@@ -214,74 +415,41 @@ public class MyExtractor extends BaseExtractor {
         return nodeInfos;
     }
 
-    private List<int[]> buildCFGEdges(List<NodeInfo> nodeInfos) {
-        Map<Integer, NodeInfo> nodeMap = new HashMap<>();
-        for (NodeInfo n : nodeInfos) nodeMap.put(n.id, n);
-
-
-        // 1. 按 parent 分组：构造 childrenMap
-        Map<Integer, List<NodeInfo>> childrenMap = new HashMap<>();
-        for (NodeInfo node : nodeInfos) {
-            if (node.parent != -1) {
-                childrenMap.computeIfAbsent(node.parent, k -> new ArrayList<>()).add(node);
-            }
-        }
-
-        for (List<NodeInfo> list : childrenMap.values()) {
-            list.sort(Comparator.comparingInt(n -> n.startX));
-        }
+    private EdgeSet buildCFGEdges(List<NodeInfo> nodeInfos) {
+        // 父子关系、兄弟顺序、break/continue 目标与正常出口一次性建好索引
+        CfgStructure structure = new CfgStructure(nodeInfos);
 
-        List<NodeInfo> roots = new ArrayList<>();
+        EdgeSet edges = new EdgeSet(nodeInfos.size() * 2);
 
         for (NodeInfo node : nodeInfos) {
-            if (node.parent == -1 && (node.kind == null || !node.kind.contains("pseudo-return"))) {
-                roots.add(node);
-            }
-        }
-        roots.sort(Comparator.comparingInt(n -> n.startX));
-
-        NodeInfo pseudoReturn = null;
-        for (NodeInfo n : nodeInfos) {
-            if (n.kind.contains("pseudo-return")) {
-                pseudoReturn = n;
-                break;
-            }
-        }
-
-        List<int[]> edges = new ArrayList<>();
-        Set<String> edgeSet = new HashSet<>();
-
-        for (NodeInfo node : nodeInfos) {
-            switch (classify(node.kind)) {
-                case IF -> handleIf(node, nodeMap, childrenMap, roots, pseudoReturn, edges, edgeSet);
-                case FOR -> handleFor(node, nodeMap, childrenMap, roots, pseudoReturn, edges, edgeSet);
-                case WHILE -> handleWhile(node, nodeMap, childrenMap, roots, pseudoReturn, edges, edgeSet);
-                case DO_WHILE -> handleDoWhile(node, nodeMap, childrenMap, roots, pseudoReturn, edges, edgeSet);
-                case SWITCH -> handleSwitch(node, nodeMap, childrenMap, roots, pseudoReturn, edges, edgeSet);
-                case BREAK -> handleBreak(node, nodeMap, childrenMap, roots, pseudoReturn, edges, edgeSet);
-                case CONTINUE -> handleContinue(node, nodeMap, childrenMap, roots, pseudoReturn, edges, edgeSet);
-                case RETURN -> handleReturn(node, pseudoReturn, edges, edgeSet);
+            switch (node.nodeKind) {
+                case IF -> handleIf(node, structure, edges);
+                case FOR -> handleFor(node, structure, edges);
+                case WHILE -> handleWhile(node, structure, edges);
+                case DO_WHILE -> handleDoWhile(node, structure, edges);
+                case SWITCH -> handleSwitch(node, structure, edges);
+                case BREAK -> handleBreak(node, structure, edges);
+                case CONTINUE -> handleContinue(node, structure, edges);
+                case RETURN -> handleReturn(node, structure.pseudoReturn, edges);
                 default -> {
                 }
             }
         }
 
-        for (Map.Entry<Integer, List<NodeInfo>> entry : childrenMap.entrySet()) {
-            NodeInfo parent = nodeMap.get(entry.getKey());
-            if (parent != null && isControl(parent.kind)) {
+        for (Map.Entry<Integer, List<NodeInfo>> entry : structure.childrenMap.entrySet()) {
+            NodeInfo parent = structure.nodeMap.get(entry.getKey());
+            if (parent != null && parent.nodeKind != NodeKind.OTHER) {
                 continue;
             }
-            List<NodeInfo> siblings = entry.getValue();
-            siblings.sort(Comparator.comparingInt(n -> n.startX));
-            connectSiblings(siblings, nodeMap, childrenMap, edges, edgeSet);
+            connectSiblings(entry.getValue(), structure, edges);
         }
-        connectSiblings(roots, nodeMap, childrenMap, edges, edgeSet);
+        connectSiblings(structure.roots, structure, edges);
         return edges;
     }
 
-    private enum NodeKind {IF, FOR, WHILE, DO_WHILE, SWITCH, BREAK, CONTINUE, RETURN, OTHER}
+    enum NodeKind {IF, FOR, WHILE, DO_WHILE, SWITCH, BREAK, CONTINUE, RETURN, OTHER}
 
-    private NodeKind classify(String kind) {
+    static NodeKind classify(String kind) {
         if (kind == null) return NodeKind.OTHER;
         if (kind.startsWith("if-statement")) return NodeKind.IF;
         if (kind.startsWith("for-statement") || kind.startsWith("enhanced-for")) return NodeKind.FOR;
@@ -294,523 +462,292 @@ public class MyExtractor extends BaseExtractor {
         return NodeKind.OTHER;
     }
 
-    private boolean isControl(String kind) {
-        NodeKind nk = classify(kind);
-        return nk != NodeKind.OTHER;
+    /**
+     * 节点在所属控制结构中的角色：条件、循环体、for 的更新部分、if 的两个分支，以及方法末尾的伪返回节点。
+     */
+    enum NodeRole {NONE, CONDITION, BODY, UPDATE, THEN, ELSE, PSEUDO_RETURN}
+
+    static NodeRole roleOf(String kind) {
+        if (kind == null) return NodeRole.NONE;
+        if (kind.contains("pseudo-return")) return NodeRole.PSEUDO_RETURN;
+        if (kind.contains("condition")) return NodeRole.CONDITION;
+        if (kind.contains("if-then")) return NodeRole.THEN;
+        if (kind.contains("if-else")) return NodeRole.ELSE;
+        if (kind.contains("-body")) return NodeRole.BODY;
+        if (kind.startsWith("for-update")) return NodeRole.UPDATE;
+        return NodeRole.NONE;
     }
 
-    private void handleIf(NodeInfo node, Map<Integer, NodeInfo> nodeMap,
-                          Map<Integer, List<NodeInfo>> childrenMap, List<NodeInfo> roots, NodeInfo pseudoReturn,
-                          List<int[]> edges, Set<String> edgeSet) {
-        List<NodeInfo> children = childrenMap.getOrDefault(node.id, Collections.emptyList());
+    private void handleIf(NodeInfo node, CfgStructure structure, EdgeSet edges) {
+        List<NodeInfo> children = structure.children(node);
         NodeInfo cond = null, thenB = null, elseB = null;
         for (NodeInfo c : children) {
-            if (c.kind.startsWith("if-condition")) cond = c;
-            else if (c.kind.startsWith("if-then")) thenB = c;
-            else if (c.kind.startsWith("if-else")) elseB = c;
+            switch (c.role) {
+                case CONDITION -> cond = c;
+                case THEN -> thenB = c;
+                case ELSE -> elseB = c;
+                default -> {
+                }
+            }
         }
         if (cond == null) return;
-        addEdge(edges, edgeSet, node.id, cond.id);
-        NodeInfo after = findNext(node, nodeMap, childrenMap, roots, pseudoReturn);
+        edges.add(node.id, cond.id);
+        NodeInfo after = structure.findNext(node);
         if (thenB != null) {
-            addEdge(edges, edgeSet, cond.id, thenB.id);
-            NodeInfo thenExit = findBlockExit(thenB, nodeMap, childrenMap, pseudoReturn);
-            if (after != null && thenExit != null) addEdge(edges, edgeSet, thenExit.id, after.id);
+            edges.add(cond.id, thenB.id);
+            NodeInfo thenExit = findBlockExit(thenB, structure);
+            if (after != null && thenExit != null) edges.add(thenExit.id, after.id);
         } else if (after != null) {
-            addEdge(edges, edgeSet, cond.id, after.id);
+            edges.add(cond.id, after.id);
         }
         if (elseB != null) {
-            addEdge(edges, edgeSet, cond.id, elseB.id);
-            NodeInfo elseExit = findBlockExit(elseB, nodeMap, childrenMap, pseudoReturn);
-            if (after != null && elseExit != null) addEdge(edges, edgeSet, elseExit.id, after.id);
+            edges.add(cond.id, elseB.id);
+            NodeInfo elseExit = findBlockExit(elseB, structure);
+            if (after != null && elseExit != null) edges.add(elseExit.id, after.id);
         } else if (after != null) {
-            addEdge(edges, edgeSet, cond.id, after.id);
+            edges.add(cond.id, after.id);
         }
     }
 
-    private void handleFor(NodeInfo node, Map<Integer, NodeInfo> nodeMap,
-                           Map<Integer, List<NodeInfo>> childrenMap, List<NodeInfo> roots, NodeInfo pseudoReturn,
-                           List<int[]> edges, Set<String> edgeSet) {
-        List<NodeInfo> children = childrenMap.getOrDefault(node.id, Collections.emptyList());
+    private void handleFor(NodeInfo node, CfgStructure structure, EdgeSet edges) {
+        List<NodeInfo> children = structure.children(node);
         NodeInfo cond = null, body = null, update = null;
         for (NodeInfo c : children) {
-            if (c.kind.startsWith("for-condition")) cond = c;
-            else if (c.kind.startsWith("for-body")) body = c;
-            else if (c.kind.startsWith("for-update")) update = c;
+            switch (c.role) {
+                case CONDITION -> cond = c;
+                case BODY -> body = c;
+                case UPDATE -> update = c;
+                default -> {
+                }
+            }
         }
         if (cond == null) return;
-        addEdge(edges, edgeSet, node.id, cond.id);
-        if (body != null) addEdge(edges, edgeSet, cond.id, body.id);
+        edges.add(node.id, cond.id);
+        if (body != null) edges.add(cond.id, body.id);
         if (body != null) {
-            addEdge(edges, edgeSet, body.id, cond.id);
+            edges.add(body.id, cond.id);
         }
-        NodeInfo after = findNext(node, nodeMap, childrenMap, roots, pseudoReturn);
-        if (after != null) addEdge(edges, edgeSet, cond.id, after.id);
+        NodeInfo after = structure.findNext(node);
+        if (after != null) edges.add(cond.id, after.id);
     }
 
-    private void handleWhile(NodeInfo node, Map<Integer, NodeInfo> nodeMap,
-                             Map<Integer, List<NodeInfo>> childrenMap, List<NodeInfo> roots, NodeInfo pseudoReturn,
-                             List<int[]> edges, Set<String> edgeSet) {
-        List<NodeInfo> children = childrenMap.getOrDefault(node.id, Collections.emptyList());
+    private void handleWhile(NodeInfo node, CfgStructure structure, EdgeSet edges) {
+        List<NodeInfo> children = structure.children(node);
         NodeInfo cond = null, body = null;
         for (NodeInfo c : children) {
-            if (c.kind.startsWith("while-condition")) cond = c;
-            else if (c.kind.startsWith("while-body")) body = c;
+            if (c.role == NodeRole.CONDITION) cond = c;
+            else if (c.role == NodeRole.BODY) body = c;
         }
         if (cond == null) return;
-        addEdge(edges, edgeSet, node.id, cond.id);
+        edges.add(node.id, cond.id);
         if (body != null) {
-            addEdge(edges, edgeSet, cond.id, body.id);
-            addEdge(edges, edgeSet, body.id, cond.id);
+            edges.add(cond.id, body.id);
+            edges.add(body.id, cond.id);
         }
-        NodeInfo after = findNext(node, nodeMap, childrenMap, roots, pseudoReturn);
-        if (after != null) addEdge(edges, edgeSet, cond.id, after.id);
+        NodeInfo after = structure.findNext(node);
+        if (after != null) edges.add(cond.id, after.id);
     }
 
-    private void handleDoWhile(NodeInfo node, Map<Integer, NodeInfo> nodeMap,
-                               Map<Integer, List<NodeInfo>> childrenMap, List<NodeInfo> roots, NodeInfo pseudoReturn,
-                               List<int[]> edges, Set<String> edgeSet) {
-        List<NodeInfo> children = childrenMap.getOrDefault(node.id, Collections.emptyList());
+    private void handleDoWhile(NodeInfo node, CfgStructure structure, EdgeSet edges) {
+        List<NodeInfo> children = structure.children(node);
         NodeInfo cond = null, body = null;
         for (NodeInfo c : children) {
-            if (c.kind.contains("do-condition")) cond = c;
-            else if (c.kind.contains("do-body")) body = c;
+            if (c.role == NodeRole.CONDITION) cond = c;
+            else if (c.role == NodeRole.BODY) body = c;
         }
-        if (body != null) addEdge(edges, edgeSet, node.id, body.id);
-        if (body != null && cond != null) addEdge(edges, edgeSet, body.id, cond.id);
+        if (body != null) edges.add(node.id, body.id);
+        if (body != null && cond != null) edges.add(body.id, cond.id);
         if (cond != null) {
-            addEdge(edges, edgeSet, cond.id, body != null ? body.id : cond.id);
-            NodeInfo after = findNext(node, nodeMap, childrenMap, roots, pseudoReturn);
-            if (after != null) addEdge(edges, edgeSet, cond.id, after.id);
+            edges.add(cond.id, body != null ? body.id : cond.id);
+            NodeInfo after = structure.findNext(node);
+            if (after != null) edges.add(cond.id, after.id);
         }
     }
 
-    private void handleSwitch(NodeInfo node, Map<Integer, NodeInfo> nodeMap,
-                              Map<Integer, List<NodeInfo>> childrenMap, List<NodeInfo> roots, NodeInfo pseudoReturn,
-                              List<int[]> edges, Set<String> edgeSet) {
-        List<NodeInfo> children = childrenMap.getOrDefault(node.id, Collections.emptyList());
+    private void handleSwitch(NodeInfo node, CfgStructure structure, EdgeSet edges) {
+        List<NodeInfo> children = structure.children(node);
         if (children.isEmpty()) return;
         NodeInfo first = children.get(0);
-        addEdge(edges, edgeSet, node.id, first.id);
+        edges.add(node.id, first.id);
         for (int i = 0; i < children.size() - 1; i++) {
-            addEdge(edges, edgeSet, children.get(i).id, children.get(i + 1).id);
+            edges.add(children.get(i).id, children.get(i + 1).id);
         }
-        NodeInfo after = findNext(node, nodeMap, childrenMap, roots, pseudoReturn);
+        NodeInfo after = structure.findNext(node);
         if (after != null) {
-            for (NodeInfo c : children) addEdge(edges, edgeSet, c.id, after.id);
+            for (NodeInfo c : children) edges.add(c.id, after.id);
         }
     }
 
-    private void handleBreak(NodeInfo node, Map<Integer, NodeInfo> nodeMap,
-                             Map<Integer, List<NodeInfo>> childrenMap, List<NodeInfo> roots, NodeInfo pseudoReturn,
-                             List<int[]> edges, Set<String> edgeSet) {
-        NodeInfo target = findBreakTarget(node, nodeMap, childrenMap, roots, pseudoReturn);
-        if (target != null) addEdge(edges, edgeSet, node.id, target.id);
+    private void handleBreak(NodeInfo node, CfgStructure structure, EdgeSet edges) {
+        NodeInfo target = structure.findBreakTarget(node);
+        if (target != null) edges.add(node.id, target.id);
     }
 
-    private void handleContinue(NodeInfo node, Map<Integer, NodeInfo> nodeMap,
-                                Map<Integer, List<NodeInfo>> childrenMap, List<NodeInfo> roots, NodeInfo pseudoReturn,
-                                List<int[]> edges, Set<String> edgeSet) {
-        NodeInfo target = findContinueTarget(node, nodeMap, childrenMap);
-        if (target != null) addEdge(edges, edgeSet, node.id, target.id);
+    private void handleContinue(NodeInfo node, CfgStructure structure, EdgeSet edges) {
+        NodeInfo target = structure.findContinueTarget(node);
+        if (target != null) edges.add(node.id, target.id);
     }
 
-    private void handleReturn(NodeInfo node, NodeInfo pseudoReturn, List<int[]> edges, Set<String> edgeSet) {
+    private void handleReturn(NodeInfo node, NodeInfo pseudoReturn, EdgeSet edges) {
         if (pseudoReturn != null) {
-            addEdge(edges, edgeSet, node.id, pseudoReturn.id);
-        }
-    }
-
-    private NodeInfo findBreakTarget(NodeInfo node, Map<Integer, NodeInfo> nodeMap,
-                                     Map<Integer, List<NodeInfo>> childrenMap, List<NodeInfo> roots, NodeInfo pseudoReturn) {
-        NodeInfo cur = nodeMap.get(node.parent);
-        while (cur != null) {
-            if (classify(cur.kind) == NodeKind.SWITCH || classify(cur.kind) == NodeKind.FOR
-                    || classify(cur.kind) == NodeKind.WHILE || classify(cur.kind) == NodeKind.DO_WHILE) {
-                return findNext(cur, nodeMap, childrenMap, roots, pseudoReturn);
-            }
-            cur = nodeMap.get(cur.parent);
-        }
-        return pseudoReturn;
-    }
-
-    private NodeInfo findContinueTarget(NodeInfo node, Map<Integer, NodeInfo> nodeMap,
-                                        Map<Integer, List<NodeInfo>> childrenMap) {
-        NodeInfo cur = nodeMap.get(node.parent);
-        while (cur != null) {
-            if (classify(cur.kind) == NodeKind.FOR) {
-                for (NodeInfo child : childrenMap.getOrDefault(cur.id, Collections.emptyList())) {
-                    if (child.kind.startsWith("for-update")) return child;
-                    if (child.kind.startsWith("for-condition")) return child;
-                }
-            } else if (classify(cur.kind) == NodeKind.WHILE || classify(cur.kind) == NodeKind.DO_WHILE) {
-                for (NodeInfo child : childrenMap.getOrDefault(cur.id, Collections.emptyList())) {
-                    if (child.kind.contains("condition")) return child;
-                }
-            }
-            cur = nodeMap.get(cur.parent);
+            edges.add(node.id, pseudoReturn.id);
         }
-        return null;
     }
 
-    private void connectSiblings(List<NodeInfo> siblings, Map<Integer, NodeInfo> nodeMap,
-                                 Map<Integer, List<NodeInfo>> childrenMap, List<int[]> edges,
-                                 Set<String> edgeSet) {
+    private void connectSiblings(List<NodeInfo> siblings, CfgStructure structure, EdgeSet edges) {
         if (siblings == null || siblings.size() < 2) return;
         for (int i = 0; i < siblings.size() - 1; i++) {
             NodeInfo cur = siblings.get(i);
             NodeInfo nxt = siblings.get(i + 1);
 
-            NodeKind kind = classify(cur.kind);
+            NodeKind kind = cur.nodeKind;
             if (kind == NodeKind.BREAK || kind == NodeKind.CONTINUE || kind == NodeKind.RETURN) {
                 continue;
             }
 
-            List<NodeInfo> exits = normalExits(cur, childrenMap, nodeMap, new HashSet<>());
-            NodeInfo entry = nxt;
-            for (NodeInfo ex : exits) {
+            for (NodeInfo ex : structure.normalExits(cur)) {
                 if (ex == null) continue;
-                addEdge(edges, edgeSet, ex.id, entry.id);
+                edges.add(ex.id, nxt.id);
             }
         }
     }
 
-    private NodeInfo firstExecutable(NodeInfo node, Map<Integer, List<NodeInfo>> childrenMap,
-                                     Map<Integer, NodeInfo> nodeMap, Set<Integer> visiting) {
-        if (node == null || visiting.contains(node.id)) return node;
-        visiting.add(node.id);
-        List<NodeInfo> children = childrenMap.getOrDefault(node.id, Collections.emptyList());
-        NodeKind nk = classify(node.kind);
-        if (nk == NodeKind.IF || nk == NodeKind.WHILE || nk == NodeKind.FOR) {
-            for (NodeInfo c : children) {
-                if (c.kind.contains("condition")) return c;
-            }
-        } else if (nk == NodeKind.DO_WHILE) {
-            for (NodeInfo c : children) {
-                if (c.kind.contains("do-body")) return c;
-            }
-        } else if (nk == NodeKind.SWITCH) {
-            if (!children.isEmpty()) return children.get(0);
-        }
-
-        if (!children.isEmpty()) {
-            return firstExecutable(children.get(0), childrenMap, nodeMap, visiting);
-        }
-        return node;
-    }
-
-    private List<NodeInfo> normalExits(NodeInfo node, Map<Integer, List<NodeInfo>> childrenMap,
-                                       Map<Integer, NodeInfo> nodeMap, Set<Integer> visiting) {
-        List<NodeInfo> exits = new ArrayList<>();
-        if (node == null) return exits;
-        if (visiting.contains(node.id)) return exits;
-        visiting.add(node.id);
-        NodeKind nk = classify(node.kind);
-        if (nk == NodeKind.BREAK || nk == NodeKind.CONTINUE || nk == NodeKind.RETURN) {
-            return exits;
-        }
-        List<NodeInfo> children = childrenMap.getOrDefault(node.id, Collections.emptyList());
-        switch (nk) {
-            case IF -> {
-                NodeInfo thenB = null, elseB = null, cond = null;
-                for (NodeInfo c : children) {
-                    if (c.kind.contains("condition")) cond = c;
-                    else if (c.kind.contains("if-then")) thenB = c;
-                    else if (c.kind.contains("if-else")) elseB = c;
-                }
-                if (thenB != null) exits.addAll(normalExits(thenB, childrenMap, nodeMap, visiting));
-                if (elseB != null) exits.addAll(normalExits(elseB, childrenMap, nodeMap, visiting));
-                if (exits.isEmpty() && cond != null) exits.add(cond);
-            }
-            case FOR, WHILE -> {
-                for (NodeInfo c : children) {
-                    if (c.kind.contains("condition")) exits.add(c);
-                }
-                if (exits.isEmpty()) exits.add(node);
-            }
-            case DO_WHILE -> {
-                for (NodeInfo c : children) {
-                    if (c.kind.contains("condition")) exits.add(c);
-                }
-                if (exits.isEmpty()) exits.add(node);
-            }
-            case SWITCH -> {
-                if (!children.isEmpty()) {
-                    exits.add(children.get(children.size() - 1));
-                } else {
-                    exits.add(node);
-                }
-            }
-            default -> {
-                if (!children.isEmpty()) {
-                    exits.addAll(normalExits(children.get(children.size() - 1), childrenMap, nodeMap, visiting));
-                } else {
-                    exits.add(node);
-                }
-            }
-        }
-        return exits;
-    }
-
-    private NodeInfo findBlockExit(NodeInfo block, Map<Integer, NodeInfo> nodeMap,
-                                   Map<Integer, List<NodeInfo>> childrenMap, NodeInfo pseudoReturn) {
-        List<NodeInfo> children = childrenMap.getOrDefault(block.id, Collections.emptyList());
+    private NodeInfo findBlockExit(NodeInfo block, CfgStructure structure) {
+        List<NodeInfo> children = structure.children(block);
         if (children.isEmpty()) return block;
         return children.get(children.size() - 1);
     }
 
-    private NodeInfo findNext(NodeInfo node, Map<Integer, NodeInfo> nodeMap,
-                              Map<Integer, List<NodeInfo>> childrenMap, List<NodeInfo> roots, NodeInfo pseudoReturn) {
-        NodeInfo parent = nodeMap.get(node.parent);
-        List<NodeInfo> siblings = parent == null ? null : childrenMap.get(parent.id);
-        if (siblings != null) {
-            for (int i = 0; i < siblings.size(); i++) {
-                if (siblings.get(i).id == node.id && i + 1 < siblings.size()) {
-                    return siblings.get(i + 1);
-                }
-            }
-        }
-        if (parent == null) {
-            for (int i = 0; i < roots.size(); i++) {
-                if (roots.get(i).id == node.id && i + 1 < roots.size()) return roots.get(i + 1);
-            }
-        }
-        if (parent != null) return findNext(parent, nodeMap, childrenMap, roots, pseudoReturn);
-        return null;
-    }
-
-    private void addEdge(List<int[]> edges, Set<String> edgeSet, int from, int to) {
-        String k = from + "->" + to;
-        if (edgeSet.add(k)) {
-            edges.add(new int[]{from, to});
-        }
-    }
-
 
     @Override
     public int[][] getTestRequirementsInArray(String pathFile, String methodName) {
-        int[][] cfg = getControlFlowGraphInArray(pathFile, methodName);
+        return extract(pathFile, methodName).getTestRequirements();
+    }
+
+    int[][] computeTestRequirements(int[][] cfg) {
         if (cfg == null || cfg.length == 0) {
             System.out.println("Error. No test requirement is found.");
             return new int[0][0];
         }
 
-        Map<Integer, List<Integer>> adj = buildAdj(cfg);
-        Set<Integer> nodes = collectNodes(cfg);
+        CfgGraph graph = CfgGraph.of(cfg);
 
-        List<int[]> allPaths = enumerateAllSimplePathsAndCycles(adj, nodes);
-        if (allPaths.isEmpty()) {
+        boolean parallel = parallelPrimePaths && graph.n >= PARALLEL_PRIME_PATH_THRESHOLD;
+        List<int[]> prime = primePathAlgorithm == PrimePathAlgorithm.ENUMERATE_AND_FILTER
+                ? PrimePathFinder.enumerateAndFilter(graph, parallel)
+                : PrimePathFinder.incremental(graph, parallel);
+        if (prime.isEmpty()) {
             System.out.println("Error. No test requirement is found.");
             return new int[0][0];
         }
 
-        List<int[]> prime = new ArrayList<>();
-        for (int i = 0; i < allPaths.size(); i++) {
-            int[] p = allPaths.get(i);
-            boolean isSub = false;
-            for (int j = 0; j < allPaths.size(); j++) {
-                if (i == j) continue;
-                int[] q = allPaths.get(j);
-                if (isSubpath(p, q)) {
-                    isSub = true;
-                    break;
-                }
-            }
-            if (!isSub) {
-                prime.add(p);
-            }
-        }
-
-        int[][] result = new int[prime.size()][];
-        for (int i = 0; i < prime.size(); i++) {
-            result[i] = prime.get(i);
-        }
-        return result;
-    }
-
-    private Map<Integer, List<Integer>> buildAdj(int[][] edges) {
-        Map<Integer, List<Integer>> adj = new HashMap<>();
-        for (int[] e : edges) {
-            int from = e[0];
-            int to = e[1];
-            adj.computeIfAbsent(from, k -> new ArrayList<>()).add(to);
-        }
-        return adj;
-    }
-
-    private Set<Integer> collectNodes(int[][] edges) {
-        Set<Integer> nodes = new HashSet<>();
-        for (int[] e : edges) {
-            nodes.add(e[0]);
-            nodes.add(e[1]);
-        }
-        return nodes;
+        return prime.toArray(new int[0][]);
     }
 
-    private List<int[]> enumerateAllSimplePathsAndCycles(Map<Integer, List<Integer>> adj,
-                                                         Set<Integer> nodes) {
-        List<int[]> result = new ArrayList<>();
-        Set<String> seen = new HashSet<>();
-
-        int maxNode = -1;
-        for (int v : nodes) {
-            if (v > maxNode) maxNode = v;
-        }
-        if (maxNode < 0) return result;
-
-        for (int start : nodes) {
-            boolean[] visited = new boolean[maxNode + 1];
-            List<Integer> path = new ArrayList<>();
-            visited[start] = true;
-            path.add(start);
-            dfsEnumerate(start, path, visited, adj, result, seen);
-        }
-        return result;
-    }
-
-    private void dfsEnumerate(int start, List<Integer> path, boolean[] visited,
-                              Map<Integer, List<Integer>> adj,
-                              List<int[]> result, Set<String> seen) {
-        int last = path.get(path.size() - 1);
-        List<Integer> succs = adj.get(last);
-        if (succs == null) return;
-
-        for (int succ : succs) {
-            if (!visited[succ]) {
-                visited[succ] = true;
-                path.add(succ);
-                addPath(path, result, seen);
-                dfsEnumerate(start, path, visited, adj, result, seen);
-                path.remove(path.size() - 1);
-                visited[succ] = false;
-            } else if (succ == start && path.size() >= 2) {
-                path.add(succ);
-                addPath(path, result, seen);
-                path.remove(path.size() - 1);
-            }
-        }
-    }
-
-    private void addPath(List<Integer> path, List<int[]> result, Set<String> seen) {
-        String key = pathKeyFromList(path);
-        if (!seen.contains(key)) {
-            seen.add(key);
-            result.add(toArray(path));
+    /**
+     * 流式枚举主路径：每确认一条就交给 visitor，不在内存中保存整个集合，可以限制数量、长度或中途取消。
+     * 始终使用增量算法；CFG 为空时直接返回 true。
+     *
+     * @return 是否输出了全部主路径
+     */
+    boolean streamTestRequirements(int[][] cfg, PrimePathLimits limits, PrimePathVisitor visitor) {
+        if (limits == null || visitor == null) {
+            throw new IllegalArgumentException("limits 或 visitor 不能为 null");
         }
-    }
-
-    private String pathKeyFromList(List<Integer> path) {
-        StringBuilder sb = new StringBuilder();
-        for (int v : path) {
-            sb.append(v).append(",");
+        if (cfg == null || cfg.length == 0) {
+            return true;
         }
-        return sb.toString();
+        return PrimePathFinder.incremental(CfgGraph.of(cfg), limits, visitor);
     }
 
-    private int[] toArray(List<Integer> path) {
-        int[] arr = new int[path.size()];
-        for (int i = 0; i < path.size(); i++) {
-            arr[i] = path.get(i);
-        }
-        return arr;
+    @Override
+    public int[][] getTestPathsInArray(String pathFile, String methodName) {
+        return extract(pathFile, methodName).getTestPaths();
     }
 
-    private boolean isSubpath(int[] small, int[] big) {
-        if (small.length > big.length) return false;
-        outer:
-        for (int i = 0; i <= big.length - small.length; i++) {
-            for (int j = 0; j < small.length; j++) {
-                if (big[i + j] != small[j]) {
-                    continue outer;
-                }
-            }
-            return true;
-        }
-        return false;
+    int[][] computeTestPaths(int[][] cfg, int[][] prime) {
+        return computeTestPaths(cfg, prime, testPathStrategy);
     }
 
-    @Override
-    public int[][] getTestPathsInArray(String pathFile, String methodName) {
-        int[][] cfg = getControlFlowGraphInArray(pathFile, methodName);
+    int[][] computeTestPaths(int[][] cfg, int[][] prime, TestPathStrategy strategy) {
         if (cfg == null || cfg.length == 0) {
             System.out.println("Error. No test path is found.");
             return new int[0][0];
         }
 
-        int[][] prime = getTestRequirementsInArray(pathFile, methodName);
         if (prime == null || prime.length == 0) {
             System.out.println("Error. No test path is found.");
             return new int[0][0];
         }
 
-        Map<Integer, List<Integer>> adj = buildAdj(cfg);
-        Set<Integer> nodes = collectNodes(cfg);
+        CfgGraph graph = CfgGraph.of(cfg);
 
-        int start = findEntryNode(cfg, nodes);
-        int end = findExitNode(cfg, nodes);
+        int start = graph.entry();
+        int end = graph.exit();
 
         if (start == -1 || end == -1) {
             System.out.println("Error. No test path is found.");
             return new int[0][0];
         }
 
+        // 入口出发的正向 BFS 树给出每个节点的前缀，到出口的反向 BFS 树给出每个节点的后缀，
+        // 之后每条主路径的拼接只是沿父指针走一遍
+        int[] fwdDist = new int[graph.n];
+        int[] fwdParent = graph.bfsTree(start, false, fwdDist);
+        int[] revNext = graph.bfsTree(end, true, null);
+
         List<int[]> testPaths = new ArrayList<>();
-        Set<String> seen = new HashSet<>();
-
-        for (int[] p : prime) {
-            if (p == null || p.length == 0) continue;
-
-            int pStart = p[0];
-            int pEnd = p[p.length - 1];
-
-            List<Integer> prefix = bfsPath(start, pStart, adj);
-            List<Integer> suffix = bfsPath(pEnd, end, adj);
-
-            if ((prefix == null || prefix.isEmpty()) &&
-                    (suffix == null || suffix.isEmpty())) {
-                if (pStart == start && pEnd == end) {
-                    List<Integer> only = new ArrayList<>();
-                    for (int v : p) only.add(v);
-                    String key = pathKeyFromList(only);
-                    if (!seen.contains(key)) {
-                        seen.add(key);
-                        testPaths.add(toArray(only));
-                    }
+        PathTrie seen = new PathTrie();
+        int[] buf = new int[graph.n * 3 + 1];
+
+        // 合并模式下先用 tour 覆盖，剩下进不了任何入口到出口路径的主路径仍逐条拼接
+        boolean[] covered = new boolean[prime.length];
+        if (strategy == TestPathStrategy.MERGED_TOURS) {
+            for (int[] tour : TestPathTours.build(graph, prime, start, revNext, covered)) {
+                if (seen.add(tour, tour.length)) testPaths.add(tour);
+            }
+        }
+
+        for (int k = 0; k < prime.length; k++) {
+            int[] p = prime[k];
+            if (covered[k] || p == null || p.length == 0) continue;
+
+            int pStart = graph.indexOf(p[0]);
+            int pEnd = graph.indexOf(p[p.length - 1]);
+            if (pStart < 0 || pEnd < 0) continue;
+
+            boolean hasPrefix = fwdParent[pStart] != CfgGraph.UNREACHED;
+            boolean hasSuffix = revNext[pEnd] != CfgGraph.UNREACHED;
+
+            if (!hasPrefix && !hasSuffix) {
+                if (pStart == start && pEnd == end && seen.add(p, p.length)) {
+                    testPaths.add(p.clone());
                 }
                 continue;
             }
 
-            List<Integer> path = new ArrayList<>();
+            int len = 0;
 
-            if (prefix != null && !prefix.isEmpty()) {
-                path.addAll(prefix);
+            if (hasPrefix) {
+                // 前缀 entry .. pStart 的最后一个节点就是 p[0]，不重复写入
+                len = fwdDist[pStart];
+                for (int v = fwdParent[pStart], i = len - 1; v != -1; v = fwdParent[v], i--) {
+                    buf[i] = graph.ids[v];
+                }
             }
 
-            int startIdx = 0;
-            if (!path.isEmpty() && path.get(path.size() - 1) == pStart) {
-                startIdx = 1;
-            }
-            for (int i = startIdx; i < p.length; i++) {
-                path.add(p[i]);
+            for (int x : p) {
+                buf[len++] = x;
             }
 
-            if (suffix != null && !suffix.isEmpty()) {
-                int tNode = pEnd;
-                int idx = 0;
-                if (suffix.get(0) == tNode) {
-                    idx = 1;
-                }
-                for (int i = idx; i < suffix.size(); i++) {
-                    path.add(suffix.get(i));
+            if (hasSuffix) {
+                for (int v = revNext[pEnd]; v != -1; v = revNext[v]) {
+                    buf[len++] = graph.ids[v];
                 }
             }
 
-            if (!path.isEmpty()) {
-                String key = pathKeyFromList(path);
-                if (!seen.contains(key)) {
-                    seen.add(key);
-                    testPaths.add(toArray(path));
-                }
+            if (len > 0 && seen.add(buf, len)) {
+                testPaths.add(Arrays.copyOf(buf, len));
             }
         }
 
@@ -819,69 +756,6 @@ public class MyExtractor extends BaseExtractor {
             return new int[0][0];
         }
 
-        int[][] result = new int[testPaths.size()][];
-        for (int i = 0; i < testPaths.size(); i++) {
-            result[i] = testPaths.get(i);
-        }
-        return result;
-    }
-
-    private int findEntryNode(int[][] cfg, Set<Integer> nodes) {
-        Set<Integer> hasIn = new HashSet<>();
-        for (int[] e : cfg) {
-            hasIn.add(e[1]);
-        }
-        for (int v : nodes) {
-            if (!hasIn.contains(v)) return v;
-        }
-        return -1;
-    }
-
-    private int findExitNode(int[][] cfg, Set<Integer> nodes) {
-        Set<Integer> hasOut = new HashSet<>();
-        for (int[] e : cfg) {
-            hasOut.add(e[0]);
-        }
-        for (int v : nodes) {
-            if (!hasOut.contains(v)) return v;
-        }
-        return -1;
-    }
-
-    private List<Integer> bfsPath(int start, int target, Map<Integer, List<Integer>> adj) {
-        if (start == target) {
-            List<Integer> path = new ArrayList<>();
-            path.add(start);
-            return path;
-        }
-
-        Queue<Integer> queue = new LinkedList<>();
-        Map<Integer, Integer> prev = new HashMap<>();
-
-        queue.add(start);
-        prev.put(start, null);
-
-        while (!queue.isEmpty()) {
-            int u = queue.poll();
-            List<Integer> succs = adj.get(u);
-            if (succs == null) continue;
-
-            for (int v : succs) {
-                if (prev.containsKey(v)) continue;
-                prev.put(v, u);
-                if (v == target) {
-                    List<Integer> path = new ArrayList<>();
-                    Integer cur = v;
-                    while (cur != null) {
-                        path.add(cur);
-                        cur = prev.get(cur);
-                    }
-                    Collections.reverse(path);
-                    return path;
-                }
-                queue.add(v);
-            }
-        }
-        return null;
+        return testPaths.toArray(new int[0][]);
     }
 }
@@ -0,0 +1,110 @@
+package extractbot;
+
+import java.util.Arrays;
+
+/**
+ * 整数序列的前缀树，用于路径去重。
+ * <p>
+ * 节点只是一个 int 编号；“节点 + 下一个元素”打包成 long，在一张开放寻址散列表里查子节点，
+ * 终止标记放在 boolean[] 中。插入一条路径只做 len 次散列查找，不构造字符串、不装箱。
+ */
+final class PathTrie {
+
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int[] children;
+    private int mask;
+    private int edgeCount;
+
+    private boolean[] terminal;
+    private int nodeCount = 1;    // 0 号为根
+
+    PathTrie() {
+        keys = new long[64];
+        Arrays.fill(keys, EMPTY);
+        children = new int[64];
+        mask = 63;
+        terminal = new boolean[64];
+    }
+
+    /**
+     * 插入 path[0 .. len)，返回这条路径此前是否不存在。
+     */
+    boolean add(int[] path, int len) {
+        int node = insert(path, len);
+        if (terminal[node]) return false;
+        terminal[node] = true;
+        return true;
+    }
+
+    /**
+     * 沿 path[0 .. len) 向下走，缺少的节点就地创建，返回末尾节点的编号（不设置终止标记）。
+     */
+    int insert(int[] path, int len) {
+        int node = 0;
+        for (int i = 0; i < len; i++) {
+            node = child(node, path[i]);
+        }
+        return node;
+    }
+
+    /**
+     * 节点 node 经 label 到达的子节点，不存在返回 -1。
+     */
+    int next(int node, int label) {
+        long key = ((long) node << 32) | (label & 0xFFFFFFFFL);
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) return children[i];
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** 包括根在内的节点数，节点编号为 0 .. nodeCount() - 1 */
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    private int child(int node, int label) {
+        long key = ((long) node << 32) | (label & 0xFFFFFFFFL);
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) return children[i];
+            i = (i + 1) & mask;
+        }
+        int created = nodeCount++;
+        if (created >= terminal.length) {
+            terminal = Arrays.copyOf(terminal, terminal.length * 2);
+        }
+        keys[i] = key;
+        children[i] = created;
+        if (++edgeCount * 2 > keys.length) {
+            rehash();
+        }
+        return created;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldChildren = children;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        children = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key == EMPTY) continue;
+            int i = slot(key, mask);
+            while (keys[i] != EMPTY) i = (i + 1) & mask;
+            keys[i] = key;
+            children[i] = oldChildren[j];
+        }
+    }
+}
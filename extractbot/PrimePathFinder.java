@@ -0,0 +1,407 @@
+package extractbot;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 在 {@link CfgGraph} 的稠密下标上计算主路径（prime path），输出时换回原始节点编号。
+ * <p>
+ * 提供两种算法：
+ * <ul>
+ *     <li>{@link #incremental}：Ammann–Offutt 增量算法，逐层把路径延长一个节点，延长的同时判定极大性，不需要两两比较；</li>
+ *     <li>{@link #enumerateAndFilter}：先枚举所有简单路径和简单环，再用 {@link SubpathIndex} 去掉被其他路径包含的，保留下来作为对照实现。</li>
+ * </ul>
+ */
+final class PrimePathFinder {
+
+    /** 每处理这么多条路径查询一次取消信号 */
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+    private PrimePathFinder() {
+    }
+
+    /**
+     * Ammann–Offutt 增量算法，收集全部主路径（原始编号）。
+     * parallel 为 true 时按起点拆分为 fork-join 任务并行计算，合并后的顺序与顺序执行完全一致。
+     */
+    static List<int[]> incremental(CfgGraph graph, boolean parallel) {
+        if (parallel) {
+            int[] comp = graph.components();
+            return byStart(graph.n, (start, out) -> {
+                Progress progress = new Progress(PrimePathLimits.unlimited());
+                extendFrom(graph, comp, start, new Frontier(graph.n), progress, path -> {
+                    out.add(path);
+                    return true;
+                });
+            });
+        }
+        List<int[]> result = new ArrayList<>();
+        incremental(graph, PrimePathLimits.unlimited(), path -> {
+            result.add(path);
+            return true;
+        });
+        return result;
+    }
+
+    /**
+     * Ammann–Offutt 增量算法，流式输出。
+     * <p>
+     * 对每个起点 s，从 [s] 开始逐层延长：长度为 k 的每条路径尝试接上末尾节点的每个后继——
+     * 后继就是 s 时得到一个简单环，环不可能再被延长，直接确认为主路径；后继不在路径中时得到下一层的路径；
+     * 后继已在路径中则此方向无法延长。至少能延长一次的路径一定是更长路径的子路径，直接丢弃；
+     * 向后无法延长的路径只要再确认 s 的所有前驱都已在路径中（即向前也无法延长），就是极大的，当即确认。
+     * 因此每条路径只在生成时检查一次，整个过程没有 O(P²·L) 的过滤，任何时刻只保存一个起点的当前层。
+     * <p>
+     * 借助强连通分量剪枝：s 的前驱若在另一个分量中，它不可能出现在从 s 出发的路径上，
+     * 所以从 s 出发不存在非环主路径，只需在 s 所在分量内部搜索回到 s 的环。
+     * 多个顺序排列的循环各自成一个分量，环搜索因此不会再跨循环组合展开。
+     * <p>
+     * 输出顺序：按起点编号升序，同一起点内按路径长度升序。路径一经确认立即交给 visitor，不在内部累积。
+     *
+     * @return true 表示已输出全部主路径；因数量、长度限制、取消或 visitor 返回 false 而提前结束时返回 false
+     */
+    static boolean incremental(CfgGraph graph, PrimePathLimits limits, PrimePathVisitor visitor) {
+        Progress progress = new Progress(limits);
+        Frontier frontier = new Frontier(graph.n);
+        int[] comp = graph.components();
+        for (int s = 0; s < graph.n; s++) {
+            if (!extendFrom(graph, comp, s, frontier, progress, visitor)) return false;
+        }
+        return progress.complete;
+    }
+
+    /**
+     * 一次流式枚举的计数状态：剩余可输出条数、距上次查询取消信号处理的路径数，以及是否因长度上限截断过。
+     */
+    private static final class Progress {
+        final PrimePathLimits limits;
+        long remaining;
+        int sinceCheck;
+        boolean complete = true;
+
+        Progress(PrimePathLimits limits) {
+            this.limits = limits;
+            this.remaining = limits.getMaxCount();
+        }
+    }
+
+    /**
+     * 逐层延长时复用的两层路径缓冲区：长度为 k 的第 p 条路径存放在 cur[p * k .. p * k + k)。
+     * 小图另外为每条路径保存一个节点位图 curMask[p]，判断节点是否在路径上只需一次位与。
+     */
+    private static final class Frontier {
+        int[] cur;
+        int[] next;
+        long[] curMask;
+        long[] nextMask;
+
+        Frontier(int n) {
+            cur = new int[Math.max(1, n)];
+            next = new int[Math.max(1, n)];
+            curMask = new long[Math.max(1, n)];
+            nextMask = new long[Math.max(1, n)];
+        }
+    }
+
+    /**
+     * 从起点 s 开始逐层延长，确认的主路径交给 visitor；comp 为 {@link CfgGraph#components()} 的结果。
+     *
+     * @return false 表示需要立即停止整个枚举
+     */
+    private static boolean extendFrom(CfgGraph graph, int[] comp, int s, Frontier buf, Progress progress,
+                                      PrimePathVisitor visitor) {
+        int maxLength = progress.limits.getMaxLength();
+        // 只有环的起点：不离开 s 的分量，也不输出非环路径
+        boolean cyclesOnly = hasPredecessorOutside(graph, comp, s);
+        boolean small = graph.isSmall();
+        int[] frontier = buf.cur;
+        int[] next = buf.next;
+        long[] masks = buf.curMask;
+        long[] nextMasks = buf.nextMask;
+        frontier[0] = s;
+        masks[0] = 1L << s;
+        int count = 1;
+        int k = 1;
+        try {
+            while (count > 0) {
+                // 路径长度上限：能延长到 k + 1 个节点的路径只用于判定极大性，不再保存
+                boolean grow = k + 1 <= maxLength;
+                int nextCount = 0;
+                for (int p = 0; p < count; p++) {
+                    if (++progress.sinceCheck >= CANCEL_CHECK_INTERVAL) {
+                        progress.sinceCheck = 0;
+                        if (progress.limits.isCancelled()) return false;
+                    }
+                    int base = p * k;
+                    int last = frontier[base + k - 1];
+                    long pathMask = small ? masks[p] : 0L;
+                    boolean extended = false;
+                    for (int i = graph.succStart[last], end = graph.succStart[last + 1]; i < end; i++) {
+                        int succ = graph.succ[i];
+                        if (succ == s && k >= 2) {
+                            // 回到起点：简单环，总是主路径
+                            extended = true;
+                            if (!grow) {
+                                progress.complete = false;
+                                continue;
+                            }
+                            if (progress.remaining-- <= 0) return false;
+                            int[] cycle = new int[k + 1];
+                            for (int j = 0; j < k; j++) cycle[j] = graph.ids[frontier[base + j]];
+                            cycle[k] = graph.ids[s];
+                            if (!visitor.visit(cycle)) return false;
+                        } else if (cyclesOnly && comp[succ] != comp[s]) {
+                            // 离开分量后回不到 s，这个方向在只找环时没有意义
+                        } else if (small ? (pathMask & (1L << succ)) == 0 : !contains(frontier, base, k, succ)) {
+                            extended = true;
+                            if (!grow) {
+                                progress.complete = false;
+                                continue;
+                            }
+                            int need = (nextCount + 1) * (k + 1);
+                            if (need > next.length) {
+                                next = Arrays.copyOf(next, Math.max(need, next.length * 2));
+                            }
+                            int dst = nextCount * (k + 1);
+                            System.arraycopy(frontier, base, next, dst, k);
+                            next[dst + k] = succ;
+                            if (small) {
+                                if (nextCount >= nextMasks.length) {
+                                    nextMasks = Arrays.copyOf(nextMasks, nextMasks.length * 2);
+                                }
+                                nextMasks[nextCount] = pathMask | (1L << succ);
+                            }
+                            nextCount++;
+                        }
+                    }
+                    if (!extended && !cyclesOnly && k >= 2
+                            && !(small ? (graph.predMask[s] & ~pathMask) != 0 : extendableAtStart(graph, frontier, base, k))) {
+                        if (progress.remaining-- <= 0) return false;
+                        int[] path = new int[k];
+                        for (int j = 0; j < k; j++) path[j] = graph.ids[frontier[base + j]];
+                        if (!visitor.visit(path)) return false;
+                    }
+                }
+                int[] tmp = frontier;
+                frontier = next;
+                next = tmp;
+                long[] tmpMasks = masks;
+                masks = nextMasks;
+                nextMasks = tmpMasks;
+                count = nextCount;
+                k++;
+            }
+            return true;
+        } finally {
+            // 扩容后的缓冲区留给下一个起点复用
+            buf.cur = frontier;
+            buf.next = next;
+            buf.curMask = masks;
+            buf.nextMask = nextMasks;
+        }
+    }
+
+    /**
+     * 单个起点的计算过程，结果按顺序追加到 out。
+     */
+    private interface StartBody {
+        void run(int start, List<int[]> out);
+    }
+
+    /**
+     * 对起点区间 [lo, hi) 二分拆分的 fork-join 任务；叶子任务只处理一个起点，使用自己的缓冲区，
+     * 合并时先左后右，因此结果顺序与按起点顺序执行相同。
+     */
+    @SuppressWarnings("serial")
+    private static final class ByStartTask extends RecursiveTask<List<int[]>> {
+        private final int lo;
+        private final int hi;
+        private final StartBody body;
+
+        ByStartTask(int lo, int hi, StartBody body) {
+            this.lo = lo;
+            this.hi = hi;
+            this.body = body;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            if (hi - lo <= 1) {
+                List<int[]> out = new ArrayList<>();
+                for (int s = lo; s < hi; s++) body.run(s, out);
+                return out;
+            }
+            int mid = (lo + hi) >>> 1;
+            ByStartTask right = new ByStartTask(mid, hi, body);
+            right.fork();
+            List<int[]> left = new ByStartTask(lo, mid, body).compute();
+            left.addAll(right.join());
+            return left;
+        }
+    }
+
+    /**
+     * 在当前 fork-join 池（不在池中时使用公共池）上按起点并行执行 body。
+     */
+    private static List<int[]> byStart(int n, StartBody body) {
+        ByStartTask task = new ByStartTask(0, n, body);
+        return ForkJoinTask.inForkJoinPool() ? task.invoke() : ForkJoinPool.commonPool().invoke(task);
+    }
+
+    private static boolean hasPredecessorOutside(CfgGraph graph, int[] comp, int v) {
+        for (int i = graph.predStart[v], end = graph.predStart[v + 1]; i < end; i++) {
+            if (comp[graph.pred[i]] != comp[v]) return true;
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] buf, int base, int len, int v) {
+        for (int i = base, end = base + len; i < end; i++) {
+            if (buf[i] == v) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 路径首节点是否存在不在路径中的前驱，即路径能否向前延长。
+     */
+    private static boolean extendableAtStart(CfgGraph graph, int[] buf, int base, int len) {
+        int first = buf[base];
+        for (int i = graph.predStart[first], end = graph.predStart[first + 1]; i < end; i++) {
+            if (!contains(buf, base, len, graph.pred[i])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 先枚举所有简单路径和简单环，再去掉是其他路径子路径的那些，剩下的即为主路径（原始编号）。
+     * 包含关系由 {@link SubpathIndex} 一次性求出，与路径总长度成线性。
+     */
+    static List<int[]> enumerateAndFilter(CfgGraph graph, boolean parallel) {
+        List<int[]> allPaths = enumerateAllSimplePathsAndCycles(graph, parallel);
+
+        boolean[] contained = SubpathIndex.containedInOther(allPaths);
+
+        List<int[]> prime = new ArrayList<>();
+        for (int i = 0; i < allPaths.size(); i++) {
+            if (!contained[i]) {
+                int[] p = allPaths.get(i);
+                prime.add(graph.toIds(p, p.length));
+            }
+        }
+        return prime;
+    }
+
+    /**
+     * 从每个节点出发枚举所有简单路径（至少两个节点）和回到起点的简单环，路径以稠密下标表示。
+     * 各起点的 DFS 互不依赖；parallel 为 true 时每个起点作为一个 fork-join 任务，使用各自的 visited/path 缓冲区，
+     * 按起点顺序合并，输出顺序与顺序执行一致。
+     */
+    static List<int[]> enumerateAllSimplePathsAndCycles(CfgGraph graph, boolean parallel) {
+        if (graph.n == 0) return new ArrayList<>();
+        if (parallel) {
+            // 不同起点得到的路径首节点不同，不会重复，每个任务只需对自己的结果去重
+            return byStart(graph.n, (start, out) -> {
+                int[] path = new int[graph.n + 1];
+                int[] edgePos = new int[graph.n];
+                if (graph.isSmall()) {
+                    dfsEnumerateSmall(start, path, edgePos, new long[graph.n], graph, out, new PathTrie());
+                    return;
+                }
+                dfsEnumerate(start, path, edgePos, new boolean[graph.n], graph, out, new PathTrie());
+            });
+        }
+
+        List<int[]> result = new ArrayList<>();
+        PathTrie seen = new PathTrie();
+        int[] path = new int[graph.n + 1];
+        int[] edgePos = new int[graph.n];
+        if (graph.isSmall()) {
+            long[] masks = new long[graph.n];
+            for (int start = 0; start < graph.n; start++) {
+                dfsEnumerateSmall(start, path, edgePos, masks, graph, result, seen);
+            }
+            return result;
+        }
+        boolean[] visited = new boolean[graph.n];
+        for (int start = 0; start < graph.n; start++) {
+            dfsEnumerate(start, path, edgePos, visited, graph, result, seen);
+        }
+        return result;
+    }
+
+    /**
+     * 从 start 出发的 DFS，用显式栈代替递归：path[0 .. depth) 是当前路径，edgePos[d] 是 path[d] 下一条待尝试出边在 succ 中的位置。
+     * 数千个节点的方法也不会栈溢出；返回时 visited 恢复为全 false。
+     */
+    private static void dfsEnumerate(int start, int[] path, int[] edgePos, boolean[] visited,
+                                     CfgGraph graph, List<int[]> result, PathTrie seen) {
+        path[0] = start;
+        edgePos[0] = graph.succStart[start];
+        visited[start] = true;
+        int depth = 1;
+        while (depth > 0) {
+            int top = depth - 1;
+            int last = path[top];
+            if (edgePos[top] == graph.succStart[last + 1]) {
+                visited[last] = false;
+                depth--;
+                continue;
+            }
+            int succ = graph.succ[edgePos[top]++];
+            if (!visited[succ]) {
+                visited[succ] = true;
+                path[depth] = succ;
+                addPath(path, depth + 1, result, seen);
+                edgePos[depth] = graph.succStart[succ];
+                depth++;
+            } else if (succ == start && depth >= 2) {
+                path[depth] = succ;
+                addPath(path, depth + 1, result, seen);
+            }
+        }
+    }
+
+    /**
+     * {@link #dfsEnumerate} 的小图版本：masks[d] 是 path[0 .. d] 的节点位图，回溯时不需要撤销。
+     * 末尾节点没有未访问的后继、也不能回到起点时直接出栈；后继仍按 CSR 中的顺序访问，输出顺序与大图版本一致。
+     */
+    private static void dfsEnumerateSmall(int start, int[] path, int[] edgePos, long[] masks,
+                                          CfgGraph graph, List<int[]> result, PathTrie seen) {
+        long startBit = 1L << start;
+        path[0] = start;
+        edgePos[0] = graph.succStart[start];
+        masks[0] = startBit;
+        int depth = 1;
+        while (depth > 0) {
+            int top = depth - 1;
+            int last = path[top];
+            long visited = masks[top];
+            long closing = depth >= 2 ? startBit : 0L;
+            if (edgePos[top] == graph.succStart[last + 1] || (graph.succMask[last] & (~visited | closing)) == 0) {
+                depth--;
+                continue;
+            }
+            int succ = graph.succ[edgePos[top]++];
+            long bit = 1L << succ;
+            if ((visited & bit) == 0) {
+                path[depth] = succ;
+                addPath(path, depth + 1, result, seen);
+                edgePos[depth] = graph.succStart[succ];
+                masks[depth] = visited | bit;
+                depth++;
+            } else if (bit == closing) {
+                path[depth] = succ;
+                addPath(path, depth + 1, result, seen);
+            }
+        }
+    }
+
+    private static void addPath(int[] path, int len, List<int[]> result, PathTrie seen) {
+        if (seen.add(path, len)) {
+            result.add(Arrays.copyOf(path, len));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package extractbot;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * 流式主路径枚举的限制条件：最多输出多少条、路径最多包含多少个节点，以及调用方的取消信号。
+ * 实例不可变，with* 方法返回新实例。
+ */
+public final class PrimePathLimits {
+
+    private static final BooleanSupplier NEVER = () -> false;
+
+    private static final PrimePathLimits UNLIMITED = new PrimePathLimits(Long.MAX_VALUE, Integer.MAX_VALUE, NEVER);
+
+    private final long maxCount;
+    private final int maxLength;
+    private final BooleanSupplier cancelled;
+
+    private PrimePathLimits(long maxCount, int maxLength, BooleanSupplier cancelled) {
+        this.maxCount = maxCount;
+        this.maxLength = maxLength;
+        this.cancelled = cancelled;
+    }
+
+    public static PrimePathLimits unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * 最多输出 maxCount 条主路径。
+     */
+    public PrimePathLimits withMaxCount(long maxCount) {
+        if (maxCount < 0) {
+            throw new IllegalArgumentException("maxCount 不能为负数");
+        }
+        return new PrimePathLimits(maxCount, maxLength, cancelled);
+    }
+
+    /**
+     * 只输出节点数不超过 maxLength 的主路径；更长的路径不再展开。
+     */
+    public PrimePathLimits withMaxLength(int maxLength) {
+        if (maxLength < 2) {
+            throw new IllegalArgumentException("maxLength 至少为 2");
+        }
+        return new PrimePathLimits(maxCount, maxLength, cancelled);
+    }
+
+    /**
+     * 枚举过程中定期查询，返回 true 时停止。
+     */
+    public PrimePathLimits withCancellation(BooleanSupplier cancelled) {
+        if (cancelled == null) {
+            throw new IllegalArgumentException("cancelled 不能为 null");
+        }
+        return new PrimePathLimits(maxCount, maxLength, cancelled);
+    }
+
+    public long getMaxCount() {
+        return maxCount;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    boolean isCancelled() {
+        return cancelled.getAsBoolean();
+    }
+}
@@ -0,0 +1,121 @@
+package extractbot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import extractbot.tool.TestUtils;
+
+
+/**
+ * 增量算法与“先枚举再过滤”算法的主路径对照。两者实现相互独立，结果集合必须相同；
+ * 覆盖多强连通分量（SCC 剪枝）、不超过 64 个节点（位图）和超过 64 个节点、以及并行与顺序计算。
+ */
+public class PrimePathTests {
+
+	/* ExampleTests 中 example1 的 CFG 和主路径 */
+	private int[][] exampleCfg = new int[][] {
+		{0, 3}, {3, 4}, {4, 5}, {5, 4}, {4, 1}, {1, 7}, {7, 8}, {8, 9}, {9, 8}, {8, 2}
+	};
+
+	private int[][] examplePrimePath = new int[][] {
+		{4, 5, 4}, {5, 4, 5}, {8, 9, 8}, {9, 8, 9}, {9, 8, 2},
+		{5, 4, 1, 7, 8, 2}, {0, 3, 4, 1, 7, 8, 2}, {0, 3, 4, 5}, {5, 4, 1, 7, 8, 9}, {0, 3, 4, 1, 7, 8, 9}
+	};
+
+	/* 嵌套循环 + 自环 + if 分支，分成多个强连通分量 */
+	private int[][] nestedCfg = new int[][] {
+		{0, 1}, {1, 2}, {2, 3}, {3, 2}, {3, 4}, {4, 1}, {1, 5}, {5, 5}, {5, 6}, {6, 7}, {6, 8}, {7, 9}, {8, 9}
+	};
+
+	/* 两个顺序的循环，中间经过菱形分支 */
+	private int[][] sequentialLoopsCfg = new int[][] {
+		{0, 1}, {1, 2}, {2, 1}, {1, 3}, {3, 4}, {3, 5}, {4, 6}, {5, 6}, {6, 7}, {7, 8}, {8, 9}, {9, 7}, {7, 10}
+	};
+
+	private static MyExtractor extractor(MyExtractor.PrimePathAlgorithm algorithm, boolean parallel) {
+		MyExtractor e = new MyExtractor();
+		e.setPrimePathAlgorithm(algorithm);
+		e.setParallelPrimePaths(parallel);
+		return e;
+	}
+
+	private static Set<String> asSet(int[][] paths) {
+		Set<String> set = new TreeSet<>();
+		for (int[] p : paths) set.add(Arrays.toString(p));
+		return set;
+	}
+
+	private static void assertSameAcrossAlgorithms(int[][] cfg) {
+		int[][] incremental = extractor(MyExtractor.PrimePathAlgorithm.INCREMENTAL, false).computeTestRequirements(cfg);
+		int[][] filtered = extractor(MyExtractor.PrimePathAlgorithm.ENUMERATE_AND_FILTER, false).computeTestRequirements(cfg);
+		assertTrue(incremental.length > 0);
+		assertEquals(asSet(filtered), asSet(incremental));
+		assertEquals(incremental.length, asSet(incremental).size());
+
+		// 并行计算的结果和顺序都与顺序计算相同
+		assertArrayEquals(incremental, extractor(MyExtractor.PrimePathAlgorithm.INCREMENTAL, true).computeTestRequirements(cfg));
+		assertEquals(asSet(filtered),
+				asSet(extractor(MyExtractor.PrimePathAlgorithm.ENUMERATE_AND_FILTER, true).computeTestRequirements(cfg)));
+	}
+
+	/**
+	 * 节点 0..n-1 串成一条链，再随机加入 n / 6 条跨度不超过 3 的回边；固定种子，每次生成的图相同。
+	 */
+	private static int[][] chainWithLoops(int n, long seed) {
+		Random random = new Random(seed);
+		List<int[]> edges = new ArrayList<>();
+		for (int i = 0; i + 1 < n; i++) edges.add(new int[] {i, i + 1});
+		for (int k = 0; k < n / 6; k++) {
+			int x = random.nextInt(n - 3);
+			edges.add(new int[] {x + 1 + random.nextInt(3), x});
+		}
+		return edges.toArray(new int[0][]);
+	}
+
+	@Test
+	public void testExample()
+	{
+		for (MyExtractor.PrimePathAlgorithm algorithm : MyExtractor.PrimePathAlgorithm.values()) {
+			int[][] source = extractor(algorithm, false).computeTestRequirements(exampleCfg);
+			assertTrue(TestUtils.checkTestRequirements(source, examplePrimePath));
+		}
+		assertSameAcrossAlgorithms(exampleCfg);
+	}
+
+	@Test
+	public void testMultipleComponents()
+	{
+		assertSameAcrossAlgorithms(nestedCfg);
+		assertSameAcrossAlgorithms(sequentialLoopsCfg);
+	}
+
+	@Test
+	public void testSmallGraphs()
+	{
+		// 不超过 64 个节点走位图路径；节点数达到并行阈值的图同时覆盖并行计算
+		for (long seed = 1; seed <= 20; seed++) {
+			assertSameAcrossAlgorithms(chainWithLoops(8 + (int) (seed * 2), seed));
+		}
+	}
+
+	@Test
+	public void testLargeGraphs()
+	{
+		// 超过 64 个节点时不再使用位图
+		for (long seed = 1; seed <= 3; seed++) {
+			int[][] cfg = chainWithLoops(CfgGraph.SMALL_GRAPH_NODES + 6 + (int) seed, seed);
+			assertTrue(CfgGraph.of(cfg).n > CfgGraph.SMALL_GRAPH_NODES);
+			assertSameAcrossAlgorithms(cfg);
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package extractbot;
+
+/**
+ * 流式主路径回调：每确认一条主路径调用一次，路径以原始节点编号表示。
+ */
+@FunctionalInterface
+public interface PrimePathVisitor {
+
+    /**
+     * @return false 表示调用方不再需要后续路径，枚举随即停止
+     */
+    boolean visit(int[] primePath);
+}
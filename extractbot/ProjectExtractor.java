@@ -0,0 +1,263 @@
+package extractbot;
+
+import cn.edu.whu.cstar.testingcourse.cfgparser.LogItem;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 工程级批量提取：遍历源码根目录下的所有 .java 文件，在 {@link ForkJoinPool} 上按文件、再按方法拆分任务，
+ * 为每个方法计算 CFG、主路径和测试路径。
+ * <p>
+ * 与 {@link MyExtractor} 的单方法入口不同，这里不会把失败吞成空数组：读文件、解析或建图中的异常，以及找不到主路径或测试路径的方法，都按文件/方法记录为
+ * {@link Failure}。结果按文件路径排序、文件内按方法在源码中的顺序排列，与线程数无关。
+ */
+public class ProjectExtractor {
+
+    private final MyExtractor extractor;
+    private final ForkJoinPool pool;
+
+    public ProjectExtractor() {
+        this(new MyExtractor(), ForkJoinPool.commonPool());
+    }
+
+    public ProjectExtractor(MyExtractor extractor, ForkJoinPool pool) {
+        if (extractor == null || pool == null) {
+            throw new IllegalArgumentException("extractor 或 pool 不能为 null");
+        }
+        this.extractor = extractor;
+        this.pool = pool;
+    }
+
+    /**
+     * 单个方法的失败记录；文件级失败（读文件、解析）时 typeName 和 methodName 为空串。
+     */
+    public static class Failure {
+        private final String pathFile;
+        private final String typeName;
+        private final String methodName;
+        private final Throwable error;
+
+        Failure(String pathFile, String typeName, String methodName, Throwable error) {
+            this.pathFile = pathFile;
+            this.typeName = typeName;
+            this.methodName = methodName;
+            this.error = error;
+        }
+
+        public String getPathFile() {
+            return pathFile;
+        }
+
+        public String getTypeName() {
+            return typeName;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            String where = methodName.isEmpty() ? pathFile : pathFile + " " + typeName + "#" + methodName;
+            return where + ": " + error;
+        }
+    }
+
+    /**
+     * 一次工程提取的汇总结果。
+     */
+    public static class Result {
+        private final Map<String, List<ExtractionResult>> resultsByFile;
+        private final List<Failure> failures;
+
+        Result(Map<String, List<ExtractionResult>> resultsByFile, List<Failure> failures) {
+            this.resultsByFile = Collections.unmodifiableMap(resultsByFile);
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        /**
+         * 以文件路径为键、按路径排序的提取结果，每个列表内按方法在源码中的顺序排列。
+         */
+        public Map<String, List<ExtractionResult>> getResultsByFile() {
+            return resultsByFile;
+        }
+
+        public List<Failure> getFailures() {
+            return failures;
+        }
+
+        public int getMethodCount() {
+            int n = 0;
+            for (List<ExtractionResult> list : resultsByFile.values()) n += list.size();
+            return n;
+        }
+    }
+
+    public Result extract(Path... sourceRoots) throws IOException {
+        return extract(Arrays.asList(sourceRoots));
+    }
+
+    /**
+     * 遍历所有源码根目录（也可以直接给出单个 .java 文件）并行提取；只有遍历目录本身失败时才抛出 IOException。
+     */
+    public Result extract(List<Path> sourceRoots) throws IOException {
+        List<Path> files = collectSourceFiles(sourceRoots);
+        Batch batch = pool.invoke(new FilesTask(files, 0, files.size()));
+
+        Map<String, List<ExtractionResult>> byFile = new LinkedHashMap<>();
+        for (FileOutcome outcome : batch.files) {
+            if (!outcome.results.isEmpty()) {
+                byFile.put(outcome.pathFile, outcome.results);
+            }
+        }
+        List<Failure> failures = new ArrayList<>();
+        for (FileOutcome outcome : batch.files) failures.addAll(outcome.failures);
+        return new Result(byFile, failures);
+    }
+
+    static List<Path> collectSourceFiles(List<Path> sourceRoots) throws IOException {
+        TreeSet<Path> files = new TreeSet<>();
+        for (Path root : sourceRoots) {
+            if (Files.isRegularFile(root)) {
+                files.add(root.toAbsolutePath().normalize());
+                continue;
+            }
+            try (Stream<Path> walk = Files.walk(root)) {
+                files.addAll(walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".java"))
+                        .map(p -> p.toAbsolutePath().normalize())
+                        .collect(Collectors.toList()));
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static class FileOutcome {
+        final String pathFile;
+        final List<ExtractionResult> results = new ArrayList<>();
+        final List<Failure> failures = new ArrayList<>();
+
+        FileOutcome(String pathFile) {
+            this.pathFile = pathFile;
+        }
+    }
+
+    private static class Batch {
+        final List<FileOutcome> files = new ArrayList<>();
+    }
+
+    /**
+     * 对文件列表二分拆分，叶子任务处理单个文件；合并时先左后右，保持文件顺序。
+     */
+    @SuppressWarnings("serial")
+    private class FilesTask extends RecursiveTask<Batch> {
+        private final List<Path> files;
+        private final int lo;
+        private final int hi;
+
+        FilesTask(List<Path> files, int lo, int hi) {
+            this.files = files;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Batch compute() {
+            Batch batch = new Batch();
+            if (hi - lo <= 0) {
+                return batch;
+            }
+            if (hi - lo == 1) {
+                batch.files.add(extractFile(files.get(lo).toString()));
+                return batch;
+            }
+            int mid = (lo + hi) >>> 1;
+            FilesTask left = new FilesTask(files, lo, mid);
+            FilesTask right = new FilesTask(files, mid, hi);
+            right.fork();
+            batch.files.addAll(left.compute().files);
+            batch.files.addAll(right.join().files);
+            return batch;
+        }
+    }
+
+    private FileOutcome extractFile(String pathFile) {
+        FileOutcome outcome = new FileOutcome(pathFile);
+        CompilationUnit unit;
+        List<MethodDeclaration> methods;
+        try {
+            unit = extractor.parseFile(pathFile);
+            methods = extractor.collectMethods(unit);
+        } catch (Exception | StackOverflowError e) {
+            outcome.failures.add(new Failure(pathFile, "", "", e));
+            return outcome;
+        }
+
+        List<MethodTask> tasks = new ArrayList<>(methods.size());
+        for (MethodDeclaration m : methods) {
+            tasks.add(new MethodTask(pathFile, m, unit));
+        }
+        RecursiveTask.invokeAll(tasks);
+        for (MethodTask task : tasks) {
+            if (task.result != null) outcome.results.add(task.result);
+            if (task.failure != null) outcome.failures.add(task.failure);
+        }
+        return outcome;
+    }
+
+    /**
+     * 单个方法：构造 CFG 并立即计算主路径和测试路径，结果写回任务自身，由所在文件按源码顺序收集。
+     */
+    @SuppressWarnings("serial")
+    private class MethodTask extends RecursiveTask<Void> {
+        private final String pathFile;
+        private final MethodDeclaration method;
+        private final CompilationUnit unit;
+        ExtractionResult result;
+        Failure failure;
+
+        MethodTask(String pathFile, MethodDeclaration method, CompilationUnit unit) {
+            this.pathFile = pathFile;
+            this.method = method;
+            this.unit = unit;
+        }
+
+        @Override
+        protected Void compute() {
+            String typeName = extractor.declaringTypeName(method);
+            String methodName = method.getName().getIdentifier();
+            try {
+                ExtractionResult r = extractor.resultFor(method, typeName, methodName, () -> {
+                    List<LogItem> items = CfgNodeNumbering.visit(method, unit);
+                    if (items.isEmpty()) {
+                        throw new IllegalStateException("CfgNodeVisitor 没有产生任何节点");
+                    }
+                    return extractor.buildEdgeArray(items);
+                });
+                // 单方法入口只在标准输出上报告空结果，这里记为该方法的失败
+                if (r.primePaths().length == 0) {
+                    throw new IllegalStateException("没有找到主路径");
+                }
+                if (r.testPaths().length == 0) {
+                    throw new IllegalStateException("没有找到测试路径");
+                }
+                result = r;
+            } catch (Exception | StackOverflowError e) {
+                failure = new Failure(pathFile, typeName, methodName, e);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package extractbot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 按 (规范路径, 最后修改时间, 文件大小, 方法名) 缓存 {@link ExtractionResult} 的 LRU 缓存，条目数有上限。
+ * <p>
+ * 缓存的是结果对象本身：CFG 在放入时已建好，主路径和测试路径在第一次访问时算出并留在对象里，
+ * 所以同一个未改动文件上的三个入口只读一次文件、解析一次。文件被修改后修改时间或大小变化，自然落到新的键上。
+ */
+final class ResultCache {
+
+    /**
+     * 缓存键；文件属性在查找时读取一次。
+     */
+    static final class Key {
+        final String path;
+        final long lastModified;
+        final long size;
+        final String methodName;
+
+        private Key(String path, long lastModified, long size, String methodName) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.methodName = methodName;
+        }
+
+        /**
+         * 为文件中的方法构造键；文件不存在或无法读取属性时抛出 IOException，调用方不走缓存。
+         */
+        static Key of(String pathFile, String methodName) throws IOException {
+            Path real = Paths.get(pathFile).toRealPath();
+            BasicFileAttributes attrs = Files.readAttributes(real, BasicFileAttributes.class);
+            return new Key(real.toString(), attrs.lastModifiedTime().toMillis(), attrs.size(), methodName);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return lastModified == k.lastModified && size == k.size
+                    && path.equals(k.path) && methodName.equals(k.methodName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, lastModified, size, methodName);
+        }
+    }
+
+    private final LinkedHashMap<Key, ExtractionResult> map = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ExtractionResult> eldest) {
+            if (size() > capacity) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private int capacity;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ResultCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized ExtractionResult get(Key key) {
+        ExtractionResult r = map.get(key);
+        if (r == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return r;
+    }
+
+    synchronized void put(Key key, ExtractionResult result) {
+        if (capacity > 0) {
+            map.put(key, result);
+        }
+    }
+
+    synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 调整容量；缩小时立即按 LRU 顺序淘汰多出的条目，0 表示关闭缓存。
+     */
+    synchronized void setCapacity(int capacity) {
+        this.capacity = capacity;
+        while (map.size() > capacity) {
+            Key eldest = map.keySet().iterator().next();
+            map.remove(eldest);
+            evictions++;
+        }
+    }
+
+    synchronized void clear() {
+        map.clear();
+    }
+
+    synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, map.size());
+    }
+}
@@ -0,0 +1,132 @@
+package extractbot;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 路径集合上的连续子路径匹配，基于以节点编号为字母表的 Aho–Corasick 自动机。
+ * <p>
+ * 所有路径插入同一棵 {@link PathTrie} 作为模式串，按层求失配链接和输出链接。之后既可以一次性求出哪些路径被其他路径包含
+ * （{@link #containedInOther}），也可以把任意节点序列逐个喂给 {@link #step}，用 {@link #mark} 标记在其中出现的模式。
+ * 总耗时与路径总长度成线性（失配跳转均摊），代替逐对比较的 O(P²·L)。
+ */
+final class SubpathIndex {
+
+    private final PathTrie trie = new PathTrie();
+    /** 第 i 条模式在字典树中的末尾节点 */
+    private final int[] nodeOfPath;
+    /** 字典树节点对应的模式下标，不是任何模式的末尾为 -1 */
+    private final int[] pathOfNode;
+    private final int[] fail;
+    /** 失配链上最近的模式节点，没有为 -1 */
+    private final int[] dict;
+    /** 除根以外的节点，按深度升序 */
+    private final int[] order;
+
+    /**
+     * @param paths 互不相同的模式路径
+     */
+    SubpathIndex(List<int[]> paths) {
+        int count = paths.size();
+        nodeOfPath = new int[count];
+        int maxLen = 0;
+        for (int i = 0; i < count; i++) {
+            int[] p = paths.get(i);
+            nodeOfPath[i] = trie.insert(p, p.length);
+            maxLen = Math.max(maxLen, p.length);
+        }
+
+        int nodes = trie.nodeCount();
+        pathOfNode = new int[nodes];
+        Arrays.fill(pathOfNode, -1);
+        for (int i = 0; i < count; i++) pathOfNode[nodeOfPath[i]] = i;
+
+        // 按层（深度）求失配链接与输出链接
+        fail = new int[nodes];
+        dict = new int[nodes];
+        order = new int[nodes - 1];
+        boolean[] seen = new boolean[nodes];
+        dict[0] = -1;
+        seen[0] = true;
+        int ordered = 0;
+        int[] cursor = new int[count];
+        for (int d = 0; d < maxLen; d++) {
+            for (int i = 0; i < count; i++) {
+                int[] p = paths.get(i);
+                if (p.length <= d) continue;
+                int parent = cursor[i];
+                int c = p[d];
+                int u = trie.next(parent, c);
+                cursor[i] = u;
+                if (seen[u]) continue;
+                seen[u] = true;
+                order[ordered++] = u;
+                if (parent == 0) {
+                    fail[u] = 0;
+                } else {
+                    int f = fail[parent];
+                    int v;
+                    while ((v = trie.next(f, c)) == -1 && f != 0) f = fail[f];
+                    fail[u] = v == -1 ? 0 : v;
+                }
+                int f = fail[u];
+                dict[u] = pathOfNode[f] >= 0 ? f : dict[f];
+            }
+        }
+    }
+
+    /**
+     * 从状态 state 读入节点 c 后的状态；初始状态为 0。
+     */
+    int step(int state, int c) {
+        int v;
+        while ((v = trie.next(state, c)) == -1 && state != 0) state = fail[state];
+        return v == -1 ? 0 : v;
+    }
+
+    /**
+     * 把在当前位置结束的所有模式标记到 covered 中，返回新标记的条数。
+     * 每次标记都会走完整条输出链，所以遇到已标记的模式时，链上其余的模式也已标记，可以提前停止。
+     */
+    int mark(int state, boolean[] covered) {
+        int added = 0;
+        for (int t = pathOfNode[state] >= 0 ? state : dict[state]; t > 0; t = dict[t]) {
+            int i = pathOfNode[t];
+            if (covered[i]) break;
+            covered[i] = true;
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * 对互不相同的路径 paths，返回 contained[i] 表示 paths[i] 是否为另一条路径的连续子路径。
+     * 每条路径作为文本扫描一遍，每个位置只标记当前状态上最长的那个模式，最后沿输出链接按深度从大到小传播标记。
+     */
+    static boolean[] containedInOther(List<int[]> paths) {
+        SubpathIndex index = new SubpathIndex(paths);
+        int count = paths.size();
+        boolean[] hit = new boolean[index.pathOfNode.length];
+        for (int i = 0; i < count; i++) {
+            int s = 0;
+            for (int c : paths.get(i)) {
+                s = index.step(s, c);
+                // 扫描到末尾时当前状态可能就是这条路径本身，它不算自己的子路径
+                int t = index.pathOfNode[s] >= 0 && s != index.nodeOfPath[i] ? s : index.dict[s];
+                if (t > 0) hit[t] = true;
+            }
+        }
+
+        // 出现于某条路径中的模式，其输出链上的更短模式也出现于同一路径中
+        for (int k = index.order.length - 1; k >= 0; k--) {
+            int u = index.order[k];
+            if (hit[u] && index.dict[u] > 0) hit[index.dict[u]] = true;
+        }
+
+        boolean[] contained = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            contained[i] = hit[index.nodeOfPath[i]];
+        }
+        return contained;
+    }
+}
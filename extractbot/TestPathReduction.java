@@ -0,0 +1,58 @@
+package extractbot;
+
+/**
+ * 合并生成（{@link MyExtractor.TestPathStrategy#MERGED_TOURS}）相对逐条拼接（{@link MyExtractor.TestPathStrategy#PER_PRIME_PATH}）
+ * 的测试路径规模对比：路径条数与所有路径的节点总数。
+ */
+public final class TestPathReduction {
+
+    private final int baselinePaths;
+    private final long baselineNodes;
+    private final int mergedPaths;
+    private final long mergedNodes;
+
+    TestPathReduction(int[][] baseline, int[][] merged) {
+        this.baselinePaths = baseline.length;
+        this.baselineNodes = totalNodes(baseline);
+        this.mergedPaths = merged.length;
+        this.mergedNodes = totalNodes(merged);
+    }
+
+    private static long totalNodes(int[][] paths) {
+        long total = 0;
+        for (int[] p : paths) total += p.length;
+        return total;
+    }
+
+    public int getBaselinePathCount() {
+        return baselinePaths;
+    }
+
+    public long getBaselineNodeCount() {
+        return baselineNodes;
+    }
+
+    public int getMergedPathCount() {
+        return mergedPaths;
+    }
+
+    public long getMergedNodeCount() {
+        return mergedNodes;
+    }
+
+    /** 少执行的测试路径条数 */
+    public int getSavedPaths() {
+        return baselinePaths - mergedPaths;
+    }
+
+    /** 少执行的节点总数；个别情况下合并后的 tour 更长，此时为负数 */
+    public long getSavedNodes() {
+        return baselineNodes - mergedNodes;
+    }
+
+    @Override
+    public String toString() {
+        return "测试路径 " + baselinePaths + " -> " + mergedPaths + " 条（节省 " + getSavedPaths() + "），节点 "
+                + baselineNodes + " -> " + mergedNodes + " 个（节省 " + getSavedNodes() + "）";
+    }
+}
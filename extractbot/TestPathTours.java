@@ -0,0 +1,167 @@
+package extractbot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把多条主路径串成一条从入口到出口的测试路径（tour），用尽量少、尽量短的测试路径覆盖全部主路径。
+ * <p>
+ * 贪心的集合覆盖：每条 tour 从入口出发，反复选择从当前节点出发最近（连接路径最短）的一条未覆盖主路径，
+ * 用 BFS 最短路接过去并走完它，直到从当前节点再也到不了任何未覆盖的主路径，最后沿最短路走到出口。
+ * 以出口结束的主路径每条都要独占一条 tour，它们的条数就是 tour 数的下界。
+ * tour 上的节点逐个喂给主路径的 {@link SubpathIndex}，顺带经过的主路径也随即记为已覆盖，不会再被单独选中。
+ */
+final class TestPathTours {
+
+    private TestPathTours() {
+    }
+
+    /**
+     * 生成 tour（原始编号）。prime 为原始编号的主路径，covered[i] 在 prime[i] 被某条 tour 覆盖时置为 true；
+     * 起点从入口不可达、终点到不了出口的主路径不可能出现在任何 tour 中，保持未覆盖，由调用方另行处理。
+     *
+     * @param revNext 以出口为根的反向 BFS 树（{@link CfgGraph#bfsTree}）
+     */
+    static List<int[]> build(CfgGraph graph, int[][] prime, int entry, int[] revNext, boolean[] covered) {
+        int count = prime.length;
+        int[][] dense = new int[count][];
+        List<int[]> patterns = new ArrayList<>();
+        int[] patternOf = new int[count];
+        int[] fromEntry = graph.bfsTree(entry, false, null);
+        // 重复的主路径共用一个模式
+        PathTrie trie = new PathTrie();
+        Map<Integer, Integer> patternAtNode = new HashMap<>();
+        int remaining = 0;
+        for (int i = 0; i < count; i++) {
+            patternOf[i] = -1;
+            int[] d = toDense(graph, prime[i]);
+            if (d == null || d.length == 0) continue;
+            if (fromEntry[d[0]] == CfgGraph.UNREACHED || revNext[d[d.length - 1]] == CfgGraph.UNREACHED) continue;
+            dense[i] = d;
+            Integer existing = patternAtNode.putIfAbsent(trie.insert(d, d.length), patterns.size());
+            if (existing != null) {
+                patternOf[i] = existing;
+                continue;
+            }
+            patternOf[i] = patterns.size();
+            patterns.add(d);
+            remaining++;
+        }
+
+        List<int[]> tours = new ArrayList<>();
+        if (remaining == 0) return tours;
+
+        SubpathIndex index = new SubpathIndex(patterns);
+        boolean[] hit = new boolean[patterns.size()];
+        // 以各节点为源的 BFS 树按需计算并缓存
+        int[][] parentFrom = new int[graph.n][];
+        int[][] distFrom = new int[graph.n][];
+        Tour tour = new Tour(graph.n);
+
+        while (remaining > 0) {
+            tour.reset();
+            remaining -= tour.append(entry, index, hit);
+            int cur = entry;
+            while (remaining > 0) {
+                if (parentFrom[cur] == null) {
+                    distFrom[cur] = new int[graph.n];
+                    parentFrom[cur] = graph.bfsTree(cur, false, distFrom[cur]);
+                }
+                int[] parent = parentFrom[cur];
+                int[] dist = distFrom[cur];
+
+                // 终点没有后继的主路径会让 tour 就此结束，只在没有其他候选时才选
+                int best = -1, bestDeadEnd = -1;
+                for (int i = 0; i < count; i++) {
+                    if (patternOf[i] < 0 || hit[patternOf[i]]) continue;
+                    int s = dense[i][0];
+                    if (parent[s] == CfgGraph.UNREACHED) continue;
+                    if (graph.outDegree(dense[i][dense[i].length - 1]) == 0) {
+                        if (bestDeadEnd < 0 || dist[s] < dist[dense[bestDeadEnd][0]]) bestDeadEnd = i;
+                    } else if (best < 0 || dist[s] < dist[dense[best][0]]) {
+                        best = i;
+                    }
+                }
+                if (best < 0) best = bestDeadEnd;
+                if (best < 0) break;
+
+                int[] p = dense[best];
+                remaining -= tour.appendPath(parent, dist, p[0], index, hit);
+                for (int j = 1; j < p.length; j++) {
+                    remaining -= tour.append(p[j], index, hit);
+                }
+                cur = p[p.length - 1];
+            }
+            for (int v = revNext[cur]; v != -1; v = revNext[v]) {
+                remaining -= tour.append(v, index, hit);
+            }
+            tours.add(graph.toIds(tour.nodes, tour.len));
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (patternOf[i] >= 0) covered[i] = hit[patternOf[i]];
+        }
+        return tours;
+    }
+
+    /**
+     * 正在构造的 tour：稠密下标序列及其在自动机中的当前状态。
+     */
+    private static final class Tour {
+        int[] nodes;
+        int len;
+        int state;
+
+        Tour(int n) {
+            nodes = new int[Math.max(4, n * 2)];
+        }
+
+        void reset() {
+            len = 0;
+            state = 0;
+        }
+
+        /** 追加一个节点，返回因此新覆盖的主路径条数 */
+        int append(int v, SubpathIndex index, boolean[] hit) {
+            if (len == nodes.length) {
+                nodes = Arrays.copyOf(nodes, len * 2);
+            }
+            nodes[len++] = v;
+            state = index.step(state, v);
+            return index.mark(state, hit);
+        }
+
+        /** 沿以当前末尾节点为根的 BFS 树追加到 target 的最短路（不含末尾节点本身） */
+        int appendPath(int[] parent, int[] dist, int target, SubpathIndex index, boolean[] hit) {
+            int d = dist[target];
+            if (d == 0) return 0;
+            if (len + d > nodes.length) {
+                nodes = Arrays.copyOf(nodes, Math.max(len + d, nodes.length * 2));
+            }
+            int base = len;
+            for (int v = target, i = d - 1; i >= 0; v = parent[v], i--) {
+                nodes[base + i] = v;
+            }
+            int added = 0;
+            for (int i = 0; i < d; i++) {
+                len++;
+                state = index.step(state, nodes[base + i]);
+                added += index.mark(state, hit);
+            }
+            return added;
+        }
+    }
+
+    private static int[] toDense(CfgGraph graph, int[] path) {
+        if (path == null) return null;
+        int[] d = new int[path.length];
+        for (int i = 0; i < path.length; i++) {
+            d[i] = graph.indexOf(path[i]);
+            if (d[i] < 0) return null;
+        }
+        return d;
+    }
+}
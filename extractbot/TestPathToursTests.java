@@ -0,0 +1,70 @@
+package extractbot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import extractbot.tool.TestUtils;
+
+
+/**
+ * MERGED_TOURS 生成的测试路径必须从入口走到出口、只经过 CFG 中的边，并覆盖全部主路径；条数不多于逐条生成的结果。
+ */
+public class TestPathToursTests {
+
+	/* ExampleTests 中 example1 的 CFG，入口 0，出口 2 */
+	private int[][] exampleCfg = new int[][] {
+		{0, 3}, {3, 4}, {4, 5}, {5, 4}, {4, 1}, {1, 7}, {7, 8}, {8, 9}, {9, 8}, {8, 2}
+	};
+
+	/* 嵌套循环 + 自环 + if 分支 */
+	private int[][] nestedCfg = new int[][] {
+		{0, 1}, {1, 2}, {2, 3}, {3, 2}, {3, 4}, {4, 1}, {1, 5}, {5, 5}, {5, 6}, {6, 7}, {6, 8}, {7, 9}, {8, 9}
+	};
+
+	/* 循环体内有 break 式的提前出口（3 -> 6）和 continue 式的回边（4 -> 1） */
+	private int[][] earlyExitCfg = new int[][] {
+		{0, 1}, {1, 2}, {2, 3}, {3, 4}, {3, 6}, {4, 1}, {4, 5}, {5, 1}, {1, 6}, {6, 7}
+	};
+
+	/* 两个顺序的循环，中间经过菱形分支 */
+	private int[][] sequentialLoopsCfg = new int[][] {
+		{0, 1}, {1, 2}, {2, 1}, {1, 3}, {3, 4}, {3, 5}, {4, 6}, {5, 6}, {6, 7}, {7, 8}, {8, 9}, {9, 7}, {7, 10}
+	};
+
+	private static void assertToursCoverPrimePaths(int[][] cfg, int nodeStart, int nodeEnd) {
+		MyExtractor extractor = new MyExtractor();
+		int[][] prime = extractor.computeTestRequirements(cfg);
+		int[][] merged = extractor.computeTestPaths(cfg, prime, MyExtractor.TestPathStrategy.MERGED_TOURS);
+		int[][] perPrime = extractor.computeTestPaths(cfg, prime, MyExtractor.TestPathStrategy.PER_PRIME_PATH);
+
+		assertEquals(0, TestUtils.checkTestPaths(merged, prime, cfg, nodeStart, nodeEnd));
+		assertEquals(0, TestUtils.checkTestPaths(perPrime, prime, cfg, nodeStart, nodeEnd));
+		assertTrue(merged.length <= perPrime.length);
+	}
+
+	@Test
+	public void testExample()
+	{
+		assertToursCoverPrimePaths(exampleCfg, 0, 2);
+	}
+
+	@Test
+	public void testGraphsWithCycles()
+	{
+		assertToursCoverPrimePaths(nestedCfg, 0, 9);
+		assertToursCoverPrimePaths(earlyExitCfg, 0, 7);
+		assertToursCoverPrimePaths(sequentialLoopsCfg, 0, 10);
+	}
+
+	@Test
+	public void testStrategySetting()
+	{
+		// 通过设置切换时与直接指定策略的结果相同
+		MyExtractor extractor = new MyExtractor();
+		extractor.setTestPathStrategy(MyExtractor.TestPathStrategy.MERGED_TOURS);
+		int[][] prime = extractor.computeTestRequirements(exampleCfg);
+		assertEquals(0, TestUtils.checkTestPaths(extractor.computeTestPaths(exampleCfg, prime), prime, exampleCfg, 0, 2));
+	}
+}